@@ -0,0 +1,92 @@
+package dev.hamez.dataprocessing.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.opencsv.CSVWriter;
+
+import dev.hamez.dataprocessing.entity.Student;
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.service.DataProcessingService;
+import dev.hamez.dataprocessing.service.OutputCompressor;
+
+/**
+ * Parsing a processed students CSV from storage into {@code Student}s with
+ * OpenCSV against the memory-mapped parallel reader. The file is written once
+ * per trial in the quoted format {@code /process} produces; throughput is
+ * rows per second.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CsvReadBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"opencsv", "mapped"})
+    public String reader;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Path storage;
+    private DataProcessingService dataService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        storage = Files.createTempDirectory("csv-bench");
+        dataService = new DataProcessingService(PipelineMetrics.NONE, OutputCompressor.DEFAULTS, "SplittableRandom", -1, 1000, 8,
+                reader, parallelism);
+        ReflectionTestUtils.setField(dataService, "storagePath", storage.toString());
+        dataService.init();
+
+        SplittableRandom random = new SplittableRandom(42);
+        try (Writer out = Files.newBufferedWriter(storage.resolve("students.csv")); CSVWriter csv = new CSVWriter(out)) {
+            csv.writeNext(new String[] {"studentId", "firstName", "lastName", "dob", "className", "score"});
+            for (int i = 1; i <= rows; i++) {
+                csv.writeNext(new String[] {String.valueOf(i), "First" + random.nextInt(100000),
+                    "Last" + random.nextInt(100000), String.valueOf(LocalDate.ofEpochDay(10957 + random.nextInt(4017))),
+                    "Class" + (1 + random.nextInt(5)), String.valueOf(55 + random.nextInt(21))});
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(storage)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Student> parseCsvToStudents() throws Exception {
+        return dataService.readCsvFromStorageAndApplyOffset("students.csv", 5);
+    }
+}
@@ -0,0 +1,137 @@
+package dev.hamez.dataprocessing.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dev.hamez.dataprocessing.entity.Student;
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.service.DataProcessingService;
+import dev.hamez.dataprocessing.service.OutputCompressor;
+import dev.hamez.dataprocessing.service.impl.StudentServiceImpl;
+import dev.hamez.dataprocessing.util.ProgressListener;
+import dev.hamez.dataprocessing.util.StreamingExcelReader;
+import dev.hamez.dataprocessing.util.XlsxPackageWriter;
+
+/**
+ * One end-to-end pass of each stage of the generate, process, import and
+ * export pipeline, at several row counts. Inputs are generated once per trial
+ * from a fixed seed in a temporary storage directory; exports render to a
+ * null sink from students already in memory, so only rendering is measured.
+ * Each invocation is a full run, hence single-shot timing.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Path storage;
+    private DataProcessingService dataService;
+    private StudentServiceImpl studentService;
+    private Path workbook;
+    private String csvName;
+    private List<Student> students;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        storage = Files.createTempDirectory("pipeline-bench");
+        dataService = new DataProcessingService(PipelineMetrics.NONE, OutputCompressor.DEFAULTS, "SplittableRandom", -1, 1000, 8,
+                "mapped", 4);
+        ReflectionTestUtils.setField(dataService, "storagePath", storage.toString());
+        dataService.init();
+        studentService = new StudentServiceImpl(null, null, null, null, null, PipelineMetrics.NONE, null, 5000, -1,
+                XlsxPackageWriter.MAX_ROWS_PER_SHEET, 1_000_000, 4, 32);
+
+        String workbookName = dataService.generateExcel(rows, 1, 42L, ProgressListener.NONE);
+        workbook = storage.resolve(Path.of(workbookName).getFileName());
+        csvName = dataService.processExcelFromStorage(workbook.getFileName().toString());
+        students = dataService.readCsvFromStorageAndApplyOffset(csvName, 5);
+        for (int i = 0; i < students.size(); i++) {
+            students.get(i).setStudentId(i + 1L);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(storage)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String generateExcel() throws IOException {
+        String name = dataService.generateExcel(rows, 1, 42L, ProgressListener.NONE);
+        Files.deleteIfExists(storage.resolve(Path.of(name).getFileName()));
+        return name;
+    }
+
+    @Benchmark
+    public void readExcelStreaming(Blackhole bh) throws Exception {
+        try (InputStream in = Files.newInputStream(workbook)) {
+            StreamingExcelReader.readExcelStreaming(in, (rowNum, row) -> bh.consume(row));
+        }
+    }
+
+    @Benchmark
+    public void readExcelRows(Blackhole bh) throws Exception {
+        try (InputStream in = Files.newInputStream(workbook)) {
+            StreamingExcelReader.readExcelRows(in, (rowNum, row) -> bh.consume(row.get(row.size() - 1)));
+        }
+    }
+
+    @Benchmark
+    public String processExcelToCsv() throws Exception {
+        String name = dataService.processExcelFromStorage(workbook.getFileName().toString());
+        Files.deleteIfExists(storage.resolve(name));
+        return name;
+    }
+
+    @Benchmark
+    public List<Student> parseCsvToStudents() throws Exception {
+        return dataService.readCsvFromStorageAndApplyOffset(csvName, 5);
+    }
+
+    @Benchmark
+    public void exportCsv() throws IOException {
+        studentService.exportToCsv(students.stream(), Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void exportExcel() throws IOException {
+        studentService.exportToExcel(students.stream(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void exportPdf() throws IOException {
+        studentService.exportToPdf(students.stream(), OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,139 @@
+package dev.hamez.dataprocessing.benchmark;
+
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.hamez.dataprocessing.util.RandomDataGenerator;
+
+/**
+ * Cost of drawing the random values for one student row: the original
+ * SecureRandom/LongStream implementation against the SplittableRandom-backed
+ * generator, single-threaded and with four threads contending.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomDataGeneratorBenchmark {
+
+    private static final String[] CLASSES = {"Class1", "Class2", "Class3", "Class4", "Class5"};
+    private static final LocalDate START = LocalDate.of(2000, 1, 1);
+    private static final LocalDate END = LocalDate.of(2010, 12, 31);
+    private static final int BATCH = 1000;
+
+    @State(Scope.Thread)
+    public static class Batch {
+
+        RandomDataGenerator random;
+        final char[] names = new char[BATCH * 8];
+        final int[] nameEnds = new int[BATCH];
+        final int[] epochDays = new int[BATCH];
+        final int[] classes = new int[BATCH];
+        final int[] scores = new int[BATCH];
+
+        @Setup
+        public void setUp() {
+            random = RandomDataGenerator.seeded(42);
+        }
+    }
+
+    @Benchmark
+    public void legacyRow(Blackhole bh) {
+        legacyRowInto(bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void legacyRowContended(Blackhole bh) {
+        legacyRowInto(bh);
+    }
+
+    @Benchmark
+    public void perThreadRow(Blackhole bh) {
+        rowInto(bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void perThreadRowContended(Blackhole bh) {
+        rowInto(bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void bulkRows(Batch batch, Blackhole bh) {
+        RandomDataGenerator random = batch.random;
+        bh.consume(random.fillAlpha(batch.names, batch.nameEnds, BATCH, 3, 8));
+        bh.consume(random.fillAlpha(batch.names, batch.nameEnds, BATCH, 3, 8));
+        random.fillEpochDays(batch.epochDays, 0, BATCH, START, END);
+        random.fillInts(batch.classes, 0, BATCH, 0, CLASSES.length - 1);
+        random.fillInts(batch.scores, 0, BATCH, 55, 75);
+        bh.consume(batch.scores);
+    }
+
+    private static void rowInto(Blackhole bh) {
+        bh.consume(RandomDataGenerator.randomAlphaString(3, 8));
+        bh.consume(RandomDataGenerator.randomAlphaString(3, 8));
+        bh.consume(RandomDataGenerator.randomDateBetween(START, END));
+        bh.consume(CLASSES[RandomDataGenerator.randomInt(0, CLASSES.length - 1)]);
+        bh.consume(RandomDataGenerator.randomInt(55, 75));
+    }
+
+    private static void legacyRowInto(Blackhole bh) {
+        bh.consume(Legacy.randomAlphaString(3, 8));
+        bh.consume(Legacy.randomAlphaString(3, 8));
+        bh.consume(Legacy.randomDateBetween(START, END));
+        bh.consume(CLASSES[Legacy.randomInt(0, CLASSES.length - 1)]);
+        bh.consume(Legacy.randomInt(55, 75));
+    }
+
+    /**
+     * The generator as it was before the switch to SplittableRandom, kept as
+     * the baseline
+     */
+    static final class Legacy {
+
+        private static final SecureRandom RAND = new SecureRandom();
+        private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+
+        static String randomAlphaString(int minLen, int maxLen) {
+            int len = RAND.nextInt(maxLen - minLen + 1) + minLen;
+            StringBuilder sb = new StringBuilder(len);
+            for (int i = 0; i < len; i++) {
+                sb.append(ALPHABET.charAt(RAND.nextInt(ALPHABET.length())));
+            }
+            if (sb.length() > 0) {
+                sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+            }
+            return sb.toString();
+        }
+
+        static LocalDate randomDateBetween(LocalDate startInclusive, LocalDate endInclusive) {
+            long startEpochDay = startInclusive.toEpochDay();
+            long endEpochDay = endInclusive.toEpochDay();
+            long randomDay = ThreadLocalRandom.current().longs(startEpochDay, endEpochDay + 1).findFirst().getAsLong();
+            return LocalDate.ofEpochDay(randomDay);
+        }
+
+        static int randomInt(int minInclusive, int maxInclusive) {
+            return RAND.nextInt(maxInclusive - minInclusive + 1) + minInclusive;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package dev.hamez.dataprocessing.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Fetching one report page at increasing depth: OFFSET paging against keyset
+ * paging on the (class_name, student_id) index, plus the cost of an exact
+ * count against the planner estimate. Needs a running Postgres, by default
+ * the one from docker-compose.yml; override with -Dbench.jdbc.url, -Dbench.jdbc.user
+ * and -Dbench.jdbc.password. Works on its own table, created and dropped here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportPaginationBenchmark {
+
+    private static final String TABLE = "students_paging_bench";
+    private static final int ROWS = 1_000_000;
+    private static final int PAGE_SIZE = 50;
+    private static final String CLASS_NAME = "Class3";
+
+    /**
+     * Page number within the class-filtered report
+     */
+    @Param({"1", "100", "3000"})
+    public int page;
+
+    private Connection connection;
+    private PreparedStatement offsetPage;
+    private PreparedStatement keysetPage;
+    private PreparedStatement exactCount;
+    private PreparedStatement estimatedCount;
+    private long lastIdBeforePage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5433/datadb"),
+                System.getProperty("bench.jdbc.user", "devuser"),
+                System.getProperty("bench.jdbc.password", "devpass"));
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + TABLE);
+            st.execute("CREATE TABLE " + TABLE + " (student_id bigint PRIMARY KEY, first_name varchar(255),"
+                    + " last_name varchar(255), dob date, class_name varchar(255), score int)");
+            st.execute("INSERT INTO " + TABLE + " SELECT i, 'First' || i, 'Last' || i, date '2000-01-01' + (i % 4000),"
+                    + " 'Class' || (1 + i % 5), 55 + (i % 21) FROM generate_series(1, " + ROWS + ") AS i");
+            st.execute("CREATE INDEX ON " + TABLE + " (class_name, student_id)");
+            st.execute("ANALYZE " + TABLE);
+        }
+
+        offsetPage = connection.prepareStatement("SELECT * FROM " + TABLE
+                + " WHERE class_name = ? ORDER BY student_id LIMIT ? OFFSET ?");
+        keysetPage = connection.prepareStatement("SELECT * FROM " + TABLE
+                + " WHERE class_name = ? AND student_id > ? ORDER BY student_id LIMIT ?");
+        exactCount = connection.prepareStatement("SELECT count(*) FROM " + TABLE + " WHERE class_name = ?");
+        estimatedCount = connection.prepareStatement("EXPLAIN (FORMAT JSON) SELECT 1 FROM " + TABLE + " WHERE class_name = ?");
+
+        // The cursor a client would hold after reading the previous pages
+        try (PreparedStatement ps = connection.prepareStatement("SELECT coalesce(max(student_id), 0) FROM (SELECT student_id FROM "
+                + TABLE + " WHERE class_name = ? ORDER BY student_id LIMIT ?) AS seen")) {
+            ps.setString(1, CLASS_NAME);
+            ps.setInt(2, (page - 1) * PAGE_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                lastIdBeforePage = rs.getLong(1);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void offset(Blackhole bh) throws SQLException {
+        offsetPage.setString(1, CLASS_NAME);
+        offsetPage.setInt(2, PAGE_SIZE);
+        offsetPage.setInt(3, (page - 1) * PAGE_SIZE);
+        drain(offsetPage, bh);
+    }
+
+    @Benchmark
+    public void keyset(Blackhole bh) throws SQLException {
+        keysetPage.setString(1, CLASS_NAME);
+        keysetPage.setLong(2, lastIdBeforePage);
+        keysetPage.setInt(3, PAGE_SIZE);
+        drain(keysetPage, bh);
+    }
+
+    @Benchmark
+    public void countExact(Blackhole bh) throws SQLException {
+        exactCount.setString(1, CLASS_NAME);
+        drain(exactCount, bh);
+    }
+
+    @Benchmark
+    public void countEstimate(Blackhole bh) throws SQLException {
+        estimatedCount.setString(1, CLASS_NAME);
+        drain(estimatedCount, bh);
+    }
+
+    private static void drain(PreparedStatement ps, Blackhole bh) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getString(1));
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package dev.hamez.dataprocessing.controller;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,8 +17,22 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import dev.hamez.dataprocessing.entity.Student;
+import dev.hamez.dataprocessing.job.Job;
+import dev.hamez.dataprocessing.job.JobService;
+import dev.hamez.dataprocessing.job.JobTask;
+import dev.hamez.dataprocessing.job.JobType;
+import dev.hamez.dataprocessing.service.BatchProcessResult;
+import dev.hamez.dataprocessing.service.CsvImportService;
+import dev.hamez.dataprocessing.service.CsvImportService.ImportMode;
 import dev.hamez.dataprocessing.service.DataProcessingService;
+import dev.hamez.dataprocessing.service.ExcelBatchService;
+import dev.hamez.dataprocessing.service.ExcelBatchService.SheetMode;
+import dev.hamez.dataprocessing.service.ImportResult;
+import dev.hamez.dataprocessing.service.PartitionedImportResult;
+import dev.hamez.dataprocessing.service.ProcessResult;
 import dev.hamez.dataprocessing.service.StudentService;
+import dev.hamez.dataprocessing.util.Compression;
+import dev.hamez.dataprocessing.util.ProgressListener;
 
 @RestController
 @RequestMapping("/api/data")
@@ -23,17 +40,39 @@ public class DataController {
 
     private final DataProcessingService dataService;
     private final StudentService studentService;
+    private final CsvImportService importService;
+    private final JobService jobService;
+    private final ExcelBatchService batchService;
     private final Logger logger = LoggerFactory.getLogger(DataController.class);
 
-    public DataController(DataProcessingService dataService, StudentService studentService) {
+    public DataController(DataProcessingService dataService, StudentService studentService,
+            CsvImportService importService, JobService jobService, ExcelBatchService batchService) {
         this.dataService = dataService;
         this.studentService = studentService;
+        this.importService = importService;
+        this.jobService = jobService;
+        this.batchService = batchService;
     }
 
+    // async=true on generate/process/upload returns 202 with a job id; poll GET /api/jobs/{id}.
+    // parallelism > 1 renders the rows on that many threads (capped at the CPU count);
+    // seed makes the generated data reproducible.
     @PostMapping("/generate")
-    public ResponseEntity<?> generate(@RequestParam int numberOfRecords) {
+    public ResponseEntity<?> generate(@RequestParam int numberOfRecords,
+            @RequestParam(defaultValue = "1") int parallelism,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "false") boolean async) {
+        // One sheet holds the header and at most MAX_GENERATED_RECORDS students
+        if (numberOfRecords < 0 || numberOfRecords > DataProcessingService.MAX_GENERATED_RECORDS) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false,
+                    "numberOfRecords must be between 0 and " + DataProcessingService.MAX_GENERATED_RECORDS, null));
+        }
+        if (async) {
+            return submitJob(JobType.GENERATE, (long) numberOfRecords,
+                    progress -> dataService.generateExcel(numberOfRecords, parallelism, seed, progress));
+        }
         try {
-            String path = dataService.generateExcel(numberOfRecords);
+            String path = dataService.generateExcel(numberOfRecords, parallelism, seed, ProgressListener.NONE);
             return ResponseEntity.ok().body(new ApiResponse(true, "Excel generated", path));
         } catch (IOException e) {
             logger.error("Error generating excel", e);
@@ -65,11 +104,49 @@ public class DataController {
         }
     }
 
-    // Process Excel file from the storage directory by filename
+    // Process Excel file from the storage directory by filename.
+    // pipelined=true parses and writes on separate threads and reports per-stage timings (sheets=first only).
+    // sheets=each|merged converts every sheet in parallel, into one CSV per sheet or a single CSV.
+    // compression=gzip|zstd writes a .csv.gz or .csv.zst, compressed in parallel blocks.
     @PostMapping("/process")
-    public ResponseEntity<?> process(@RequestParam("filename") String filename) {
+    public ResponseEntity<?> process(@RequestParam("filename") String filename,
+            @RequestParam(defaultValue = "false") boolean pipelined,
+            @RequestParam(defaultValue = "first") String sheets,
+            @RequestParam(defaultValue = "4") int parallelism,
+            @RequestParam(defaultValue = "none") String compression,
+            @RequestParam(defaultValue = "false") boolean async) {
+        SheetMode mode;
+        try {
+            mode = SheetMode.parse(sheets);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "Unknown sheets: " + sheets, null));
+        }
+        Compression codec;
+        try {
+            codec = Compression.parse(compression);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "Unknown compression: " + compression, null));
+        }
+        if (mode != SheetMode.FIRST) {
+            if (codec != Compression.NONE) {
+                return ResponseEntity.badRequest().body(new ApiResponse(false, "compression needs sheets=first", null));
+            }
+            if (pipelined) {
+                return ResponseEntity.badRequest().body(new ApiResponse(false, "pipelined needs sheets=first", null));
+            }
+            return processBatch(List.of(filename), mode, parallelism, async);
+        }
+        if (async) {
+            return submitJob(JobType.PROCESS, null, progress -> pipelined
+                    ? dataService.processExcelPipelined(filename, codec, progress)
+                    : dataService.processExcelFromStorage(filename, codec, progress));
+        }
         try {
-            String csvPath = dataService.processExcelFromStorage(filename);
+            if (pipelined) {
+                ProcessResult result = dataService.processExcelPipelined(filename, codec, ProgressListener.NONE);
+                return ResponseEntity.ok().body(new ApiResponse(true, "Processed to CSV", result));
+            }
+            String csvPath = dataService.processExcelFromStorage(filename, codec, ProgressListener.NONE);
             return ResponseEntity.ok().body(new ApiResponse(true, "Processed to CSV", csvPath));
         } catch (Exception e) {
             logger.error("Error processing excel", e);
@@ -77,19 +154,130 @@ public class DataController {
         }
     }
 
-    // Upload CSV file from storage directory to database by filename
+    // Process several Excel files from the storage directory on a bounded worker pool,
+    // given as a list (files=a.xlsx&files=b.xlsx) or a name glob (glob=students_*.xlsx).
+    @PostMapping("/process/batch")
+    public ResponseEntity<?> processBatch(@RequestParam(required = false) List<String> files,
+            @RequestParam(required = false) String glob,
+            @RequestParam(defaultValue = "first") String sheets,
+            @RequestParam(defaultValue = "4") int parallelism,
+            @RequestParam(defaultValue = "false") boolean async) {
+        SheetMode mode;
+        try {
+            mode = SheetMode.parse(sheets);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "Unknown sheets: " + sheets, null));
+        }
+        List<String> selected = new ArrayList<>();
+        try {
+            if (files != null) {
+                selected.addAll(files);
+            }
+            if (glob != null && !glob.isBlank()) {
+                batchService.matchFiles(glob).stream().filter(f -> !selected.contains(f)).forEach(selected::add);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage(), null));
+        }
+        if (selected.isEmpty()) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "No files selected", null));
+        }
+        return processBatch(selected, mode, parallelism, async);
+    }
+
+    private ResponseEntity<?> processBatch(List<String> files, SheetMode mode, int parallelism, boolean async) {
+        if (async) {
+            return submitJob(JobType.PROCESS, null, progress -> batchService.processFiles(files, mode, parallelism, progress));
+        }
+        try {
+            BatchProcessResult result = batchService.processFiles(files, mode, parallelism, ProgressListener.NONE);
+            return ResponseEntity.ok().body(new ApiResponse(result.errors.isEmpty(), "Processed to CSV", result));
+        } catch (Exception e) {
+            logger.error("Error processing excel batch", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // Upload CSV file from storage directory to database by filename.
+    // mode=copy streams rows through PostgreSQL COPY instead of loading them all for saveAll.
+    // mode=checkpoint does the same and resumes a failed import of the same file where it stopped.
+    // mode=parallel splits the file into `partitions` ranges loaded over separate connections.
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadCsv(@RequestParam("filename") String filename) {
+    public ResponseEntity<?> uploadCsv(@RequestParam("filename") String filename,
+            @RequestParam(defaultValue = "jpa") String mode,
+            @RequestParam(defaultValue = "0") int partitions,
+            @RequestParam(defaultValue = "false") boolean async) {
+        ImportMode importMode;
+        try {
+            importMode = ImportMode.parse(mode);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "Unknown mode: " + mode, null));
+        }
+        JobTask task = progress -> switch (importMode) {
+            case PARALLEL -> importService.importPartitioned(filename, 5, partitions, progress);
+            case COPY -> importService.importFromStorage(filename, 5, progress);
+            case CHECKPOINT -> importService.importCheckpointed(filename, 5, progress);
+            case JPA -> {
+                List<Student> students = dataService.readCsvFromStorageAndApplyOffset(filename, 5);
+                int saved = studentService.saveAll(students).size();
+                progress.onProgress(saved);
+                yield saved;
+            }
+        };
+        if (async) {
+            return submitJob(JobType.UPLOAD, null, task);
+        }
         try {
-            List<Student> students = dataService.readCsvFromStorageAndApplyOffset(filename, 5);
-            var saved = studentService.saveAll(students);
-            return ResponseEntity.ok().body(new ApiResponse(true, "Uploaded to DB", saved.size()));
+            Object result = task.run(ProgressListener.NONE);
+            boolean success = !(result instanceof PartitionedImportResult partitioned) || partitioned.failedPartitions == 0;
+            return ResponseEntity.ok().body(new ApiResponse(success, "Uploaded to DB", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse(false, e.getMessage(), null));
         } catch (Exception e) {
             logger.error("Error uploading csv", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, e.getMessage(), null));
         }
     }
 
+    // Load a workbook from storage straight into the database in one pass, with
+    // the score adjustments of /process and /upload both applied. csv=true also
+    // writes the processed CSV, on its own thread from the same parse.
+    @PostMapping("/ingest")
+    public ResponseEntity<?> ingestExcel(@RequestParam("filename") String filename,
+            @RequestParam(defaultValue = "false") boolean csv,
+            @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return submitJob(JobType.INGEST, null, progress -> importService.importFromExcel(filename, csv, progress));
+        }
+        try {
+            ImportResult result = importService.importFromExcel(filename, csv, ProgressListener.NONE);
+            return ResponseEntity.ok().body(new ApiResponse(true, "Loaded to DB", result));
+        } catch (Exception e) {
+            logger.error("Error ingesting excel", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // Checkpointed imports of a file, newest first
+    @GetMapping("/upload/checkpoints")
+    public ResponseEntity<?> uploadCheckpoints(@RequestParam("filename") String filename) {
+        return ResponseEntity.ok().body(new ApiResponse(true, "Import checkpoints", importService.checkpoints(filename)));
+    }
+
+    private ResponseEntity<?> submitJob(JobType type, Long rowsTotal, JobTask task) {
+        try {
+            Job job = jobService.submit(type, rowsTotal, task);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/jobs/" + job.getId()))
+                    .body(new ApiResponse(true, "Job accepted", job));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Job queue full, rejecting {} request", type);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ApiResponse(false, "Job queue is full, retry later", null));
+        }
+    }
+
     // Simple API response wrapper
     public static class ApiResponse {
 
@@ -0,0 +1,239 @@
+package dev.hamez.dataprocessing.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.hamez.dataprocessing.controller.DataController.ApiResponse;
+import dev.hamez.dataprocessing.service.DataProcessingService;
+import dev.hamez.dataprocessing.util.LevelGzipOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Downloads of files in the storage directory. On Tomcat the file is handed
+ * to the connector's sendfile support, which copies it to the socket with
+ * {@link FileChannel#transferTo} after the request thread is released; other
+ * containers get the same call against the response stream. Single byte
+ * ranges, ETags and on-the-fly gzip of CSVs are supported.
+ */
+@RestController
+@RequestMapping("/api/data/files")
+public class FileController {
+
+    private final Logger logger = LoggerFactory.getLogger(FileController.class);
+
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("(?i)bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)");
+
+    private static final MediaType XLSX = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final DataProcessingService dataService;
+    private final int gzipLevel;
+
+    public FileController(DataProcessingService dataService, @Value("${app.download.gzip-level:1}") int gzipLevel) {
+        this.dataService = dataService;
+        this.gzipLevel = gzipLevel;
+    }
+
+    // Range requests get 206 for one range and the whole file for several;
+    // CSVs are gzipped when the client accepts it and asks for no range
+    @GetMapping("/{name}")
+    public ResponseEntity<?> download(@PathVariable String name,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file;
+        BasicFileAttributes attrs;
+        try {
+            if (!name.equals(FilenameUtils.getName(name)) || name.startsWith(".")) {
+                throw new IOException("File not found: " + name);
+            }
+            file = dataService.resolveStorageFile(name);
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) {
+                throw new IOException("File not found: " + name);
+            }
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(false, e.getMessage(), null));
+        }
+
+        long size = attrs.size();
+        boolean csv = "csv".equalsIgnoreCase(FilenameUtils.getExtension(name));
+        boolean gzip = csv && range == null && acceptsGzip(acceptEncoding);
+        // Size and modification time identify a version; the gzip variant has bytes of its own
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(attrs.lastModifiedTime().toMillis())
+                + (gzip ? "-gz" : "") + "\"";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setLastModified(attrs.lastModifiedTime().toMillis());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (csv) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(csv ? CSV : "xlsx".equalsIgnoreCase(FilenameUtils.getExtension(name)) ? XLSX
+                : MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(name).build());
+
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return send(file, name, 0, size, true, HttpStatus.OK, headers, response);
+        }
+
+        long start = 0;
+        long end = size;
+        HttpStatus status = HttpStatus.OK;
+        // A stale If-Range turns the request into a plain download of the new version
+        if (range != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            long[] bytes = byteRange(range, size);
+            if (bytes != null && bytes.length == 0) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            if (bytes != null) {
+                start = bytes[0];
+                end = bytes[1];
+                status = HttpStatus.PARTIAL_CONTENT;
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+        }
+        headers.setContentLength(end - start);
+
+        if ("HEAD".equals(request.getMethod()) || end == start) {
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        return send(file, name, start, end, false, status, headers, response);
+    }
+
+    /**
+     * Write the response on the request thread; returns null, which tells
+     * Spring the response is complete
+     */
+    private ResponseEntity<?> send(Path file, String name, long start, long end, boolean gzip, HttpStatus status,
+            HttpHeaders headers, HttpServletResponse response) throws IOException {
+        response.setStatus(status.value());
+        headers.forEach((header, values) -> values.forEach(value -> response.addHeader(header, value)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            OutputStream target = gzip ? new LevelGzipOutputStream(out, gzipLevel) : out;
+            WritableByteChannel sink = Channels.newChannel(target);
+            for (long pos = start; pos < end;) {
+                pos += channel.transferTo(pos, end - pos, sink);
+            }
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        } catch (IOException e) {
+            // Headers are out already; most often the client went away
+            logger.warn("Download of {} stopped: {}", name, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * The one range of a {@code Range} header as start and end (exclusive),
+     * an empty array if it is not satisfiable, or {@code null} to send the
+     * whole file: the header is malformed, names several ranges or covers
+     * everything anyway
+     */
+    static long[] byteRange(String header, long size) {
+        Matcher m = SINGLE_RANGE.matcher(header.trim());
+        if (!m.matches() || m.group(1).isEmpty() && m.group(2).isEmpty()) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (m.group(1).isEmpty()) {
+                // Suffix: the last n bytes
+                long suffix = Long.parseLong(m.group(2));
+                if (suffix == 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, size - suffix);
+                end = size;
+            } else {
+                start = Long.parseLong(m.group(1));
+                end = m.group(2).isEmpty() ? size : Math.min(size, Long.parseLong(m.group(2)) + 1);
+                if (!m.group(2).isEmpty() && Long.parseLong(m.group(2)) < start) {
+                    return null;
+                }
+            }
+            if (start >= size) {
+                return new long[0];
+            }
+            return start == 0 && end == size ? null : new long[] {start, end};
+        } catch (NumberFormatException e) {
+            // Too long for a long
+            return null;
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").toLowerCase(Locale.ROOT).matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*") || t.equals(etag) || t.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
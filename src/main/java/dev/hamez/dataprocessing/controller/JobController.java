@@ -0,0 +1,47 @@
+package dev.hamez.dataprocessing.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.hamez.dataprocessing.controller.DataController.ApiResponse;
+import dev.hamez.dataprocessing.job.JobService;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> list() {
+        return ResponseEntity.ok().body(new ApiResponse(true, "Jobs listed", jobService.list()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable String id) {
+        return jobService.find(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok().body(new ApiResponse(true, "Job status", job)))
+                .orElseGet(() -> notFound(id));
+    }
+
+    // Cancel a queued or running job; finished jobs are returned unchanged
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancel(@PathVariable String id) {
+        return jobService.cancel(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.accepted().body(new ApiResponse(true, "Cancellation requested", job)))
+                .orElseGet(() -> notFound(id));
+    }
+
+    private static ResponseEntity<?> notFound(String id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(false, "Job not found: " + id, null));
+    }
+}
@@ -1,38 +1,68 @@
 package dev.hamez.dataprocessing.controller;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import dev.hamez.dataprocessing.entity.Student;
+import dev.hamez.dataprocessing.controller.DataController.ApiResponse;
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.service.ClassStatsService;
+import dev.hamez.dataprocessing.service.OutputCompressor;
+import dev.hamez.dataprocessing.service.CursorPage.CountMode;
+import dev.hamez.dataprocessing.service.StudentFilter;
+import dev.hamez.dataprocessing.service.StudentQueryCache;
 import dev.hamez.dataprocessing.service.StudentService;
+import dev.hamez.dataprocessing.util.Compression;
 
 @RestController
 @RequestMapping("/api/students")
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentQueryCache queryCache;
+    private final ClassStatsService classStats;
+    private final PipelineMetrics metrics;
+    private final OutputCompressor compressor;
     private final Logger logger = LoggerFactory.getLogger(StudentController.class);
 
-    public StudentController(StudentService studentService) {
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public StudentController(StudentService studentService, StudentQueryCache queryCache, ClassStatsService classStats,
+            PipelineMetrics metrics, OutputCompressor compressor) {
         this.studentService = studentService;
+        this.queryCache = queryCache;
+        this.classStats = classStats;
+        this.metrics = metrics;
+        this.compressor = compressor;
     }
 
     @GetMapping("/report")
@@ -47,74 +77,164 @@ public class StudentController {
         return ResponseEntity.ok(result);
     }
 
-    @GetMapping("/export/excel")
-    public ResponseEntity<?> exportExcel(@RequestParam(required = false) String className) {
+    // Per-class count, mean/min/max score and score histogram, read from the
+    // summary tables that imports keep up to date
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats(
+            @RequestParam(required = false) String className,
+            @RequestParam(defaultValue = "10") int bucketWidth
+    ) {
+        if (bucketWidth < 1) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "bucketWidth must be positive", null));
+        }
+        return ResponseEntity.ok().body(new ApiResponse(true, "Class statistics", classStats.stats(blankToNull(className), bucketWidth)));
+    }
+
+    // Filter-and-aggregate scans over the in-memory columnar snapshot
+    // (app.columnar.enabled). Same shape as /stats, restricted to matching students.
+    @GetMapping("/analytics/summary")
+    public ResponseEntity<?> analyticsSummary(
+            @RequestParam(required = false) String className,
+            @RequestParam(required = false) Integer minScore,
+            @RequestParam(required = false) Integer maxScore,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornTo,
+            @RequestParam(defaultValue = "10") int bucketWidth
+    ) {
+        if (bucketWidth < 1) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "bucketWidth must be positive", null));
+        }
+        StudentFilter filter = new StudentFilter(blankToNull(className), minScore, maxScore, bornFrom, bornTo);
         try {
-            List<Student> students = (className != null && !className.isEmpty())
-                    ? studentService.findByClassName(className)
-                    : studentService.findAll();
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            studentService.exportToExcel(students, out);
-            ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
-            InputStreamResource resource = new InputStreamResource(in);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=students.xlsx")
-                    .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                    .body(resource);
-        } catch (IOException e) {
-            logger.error("Error exporting excel", e);
-            return ResponseEntity.status(500).body(new ErrorResponse("Export failed", e.getMessage()));
+            return ResponseEntity.ok().body(new ApiResponse(true, "Class statistics", studentService.summarize(filter, bucketWidth)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ApiResponse(false, e.getMessage(), null));
         }
     }
 
+    // Matching students in studentId order, rebuilt from the columnar snapshot
+    @GetMapping("/analytics/students")
+    public ResponseEntity<?> analyticsStudents(
+            @RequestParam(required = false) String className,
+            @RequestParam(required = false) Integer minScore,
+            @RequestParam(required = false) Integer maxScore,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornTo,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        StudentFilter filter = new StudentFilter(blankToNull(className), minScore, maxScore, bornFrom, bornTo);
+        try {
+            List<Student> students = studentService.filter(filter, Math.max(0, Math.min(limit, MAX_CURSOR_PAGE_SIZE)));
+            return ResponseEntity.ok().body(new ApiResponse(true, "Matching students", students));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // Rebuild the statistics from the students table
+    @PostMapping("/stats/reconcile")
+    public ResponseEntity<?> reconcileStats() {
+        int classes = classStats.reconcile();
+        return ResponseEntity.ok().body(new ApiResponse(true, "Class statistics rebuilt", classes));
+    }
+
+    // Hit, miss and eviction counters of the report cache
+    @GetMapping("/report/cache")
+    public ResponseEntity<?> reportCache() {
+        return ResponseEntity.ok().body(new ApiResponse(true, "Report cache stats", queryCache.stats()));
+    }
+
+    // Keyset-paginated report: pass nextCursor from the previous page as cursor.
+    // count=none|exact|estimate controls whether and how the total is computed.
+    @GetMapping("/report/cursor")
+    public ResponseEntity<?> reportCursor(
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String className,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "none") String count
+    ) {
+        try {
+            CountMode countMode = CountMode.valueOf(count.toUpperCase(Locale.ROOT));
+            int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+            return ResponseEntity.ok(studentService.searchAfter(blankToNull(className), cursor, pageSize, countMode));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    // Exports stream straight to the response from a database cursor, so
+    // neither the rows nor the rendered file are held in memory
+    @GetMapping("/export/excel")
+    public ResponseEntity<StreamingResponseBody> exportExcel(@RequestParam(required = false) String className) {
+        return attachment("students.xlsx", MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+                "excel", blankToNull(className), studentService::exportToExcel);
+    }
+
+    // compression=gzip|zstd sends students.csv.gz or students.csv.zst, compressed in parallel blocks
     @GetMapping("/export/csv")
-    public ResponseEntity<?> exportCsv(@RequestParam(required = false) String className) {
+    public ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam(required = false) String className,
+            @RequestParam(defaultValue = "none") String compression) {
+        Compression codec;
         try {
-            List<Student> students = (className != null && !className.isEmpty())
-                    ? studentService.findByClassName(className)
-                    : studentService.findAll();
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            try (var writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            codec = Compression.parse(compression);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(json(new ApiResponse(false, "Unknown compression: " + compression, null)));
+        }
+        MediaType type = codec == Compression.NONE ? MediaType.TEXT_PLAIN : MediaType.parseMediaType(codec.contentType);
+        return attachment("students.csv" + codec.suffix, type, "csv", blankToNull(className), (students, out) -> {
+            // Closing the compressor writes its last block; the response stream itself is closed by the container
+            try (OutputStream compressed = compressor.compress(StreamUtils.nonClosing(out), codec)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(compressed, StandardCharsets.UTF_8), 64 * 1024);
                 studentService.exportToCsv(students, writer);
             }
-            InputStreamResource resource = new InputStreamResource(new ByteArrayInputStream(out.toByteArray()));
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=students.csv")
-                    .contentType(MediaType.TEXT_PLAIN)
-                    .body(resource);
-        } catch (IOException e) {
-            logger.error("Error exporting csv", e);
-            return ResponseEntity.status(500).body(new ErrorResponse("Export failed", e.getMessage()));
-        }
+        });
     }
 
     @GetMapping("/export/pdf")
-    public ResponseEntity<?> exportPdf(@RequestParam(required = false) String className) {
-        try {
-            List<Student> students = (className != null && !className.isEmpty())
-                    ? studentService.findByClassName(className)
-                    : studentService.findAll();
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            studentService.exportToPdf(students, out);
-            InputStreamResource resource = new InputStreamResource(new ByteArrayInputStream(out.toByteArray()));
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=students.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(resource);
-        } catch (IOException e) {
-            logger.error("Error exporting pdf", e);
-            return ResponseEntity.status(500).body(new ErrorResponse("Export failed", e.getMessage()));
-        }
+    public ResponseEntity<StreamingResponseBody> exportPdf(@RequestParam(required = false) String className) {
+        return attachment("students.pdf", MediaType.APPLICATION_PDF, "pdf", blankToNull(className), studentService::exportToPdf);
     }
 
-    static class ErrorResponse {
+    private ResponseEntity<StreamingResponseBody> attachment(String filename, MediaType type, String format, String className,
+            StudentExporter exporter) {
+        String endpoint = "/api/students/export/" + format;
+        StreamingResponseBody body = out -> {
+            long start = System.nanoTime();
+            long[] rows = {0};
+            try {
+                studentService.streamByClassName(className, students -> exporter.export(students.peek(s -> rows[0]++), out));
+            } catch (IOException | RuntimeException e) {
+                // Headers are already sent by now, so the client sees a truncated download
+                logger.error("Error exporting {}", format, e);
+                throw e;
+            }
+            metrics.time("export-render", endpoint, filename, System.nanoTime() - start);
+            metrics.rows("exported", endpoint, filename, rows[0]);
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(type)
+                .body(body);
+    }
 
-        public String error;
-        public String detail;
+    /**
+     * An error body for the streaming endpoints, whose declared body type
+     * leaves no room for a plain {@link ApiResponse}
+     */
+    private static StreamingResponseBody json(ApiResponse response) {
+        return out -> JSON.writeValue(StreamUtils.nonClosing(out), response);
+    }
 
-        public ErrorResponse(String error, String detail) {
-            this.error = error;
-            this.detail = detail;
-        }
+    @FunctionalInterface
+    private interface StudentExporter {
+
+        void export(Stream<Student> students, OutputStream out) throws IOException;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 }
@@ -0,0 +1,97 @@
+package dev.hamez.dataprocessing.controller;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.hamez.dataprocessing.controller.DataController.ApiResponse;
+import dev.hamez.dataprocessing.service.ChunkedUploadService;
+import dev.hamez.dataprocessing.service.UploadStatus;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Chunked, resumable upload of files into the storage directory. Chunk
+ * bodies are raw bytes rather than multipart parts, so nothing is buffered
+ * before it reaches the file.
+ */
+@RestController
+@RequestMapping("/api/data/uploads")
+public class UploadController {
+
+    private final ChunkedUploadService uploadService;
+    private final Logger logger = LoggerFactory.getLogger(UploadController.class);
+
+    public UploadController(ChunkedUploadService uploadService) {
+        this.uploadService = uploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(@RequestParam String filename, @RequestParam long size) {
+        return handle(() -> {
+            UploadStatus status = uploadService.start(filename, size);
+            return ResponseEntity.created(URI.create("/api/data/uploads/" + status.uploadId))
+                    .body(new ApiResponse(true, "Upload started", status));
+        });
+    }
+
+    // Body: the bytes of the file starting at offset, any length and order. Only
+    // octet-stream, so a form content type cannot make the container read it
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> chunk(@PathVariable String id, @RequestParam long offset, HttpServletRequest request) {
+        return handle(() -> {
+            UploadStatus status = uploadService.writeChunk(id, offset, request.getContentLengthLong(), request.getInputStream());
+            return ResponseEntity.ok().body(new ApiResponse(true, "Chunk stored", status));
+        });
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id) {
+        return handle(() -> ResponseEntity.ok().body(new ApiResponse(true, "Upload status", uploadService.status(id))));
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable String id, @RequestParam String sha256) {
+        return handle(() -> ResponseEntity.ok().body(new ApiResponse(true, "Upload completed", uploadService.complete(id, sha256))));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(@PathVariable String id) {
+        return handle(() -> {
+            uploadService.abort(id);
+            return ResponseEntity.ok().body(new ApiResponse(true, "Upload aborted", null));
+        });
+    }
+
+    private ResponseEntity<?> handle(Action action) {
+        try {
+            return action.run();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(false, e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse(false, e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Error handling upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, e.getMessage(), null));
+        }
+    }
+
+    private interface Action {
+
+        ResponseEntity<?> run() throws Exception;
+    }
+}
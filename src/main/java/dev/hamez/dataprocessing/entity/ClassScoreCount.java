@@ -0,0 +1,43 @@
+package dev.hamez.dataprocessing.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Number of students of a class with one exact score
+ */
+@Entity
+@Table(name = "class_score_counts")
+@IdClass(ClassScoreCount.Key.class)
+public class ClassScoreCount {
+
+    @Id
+    private String className;
+
+    @Id
+    private int score;
+
+    private long students;
+
+    public ClassScoreCount() {}
+
+    public String getClassName() {
+        return className;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getStudents() {
+        return students;
+    }
+
+    public record Key(String className, int score) implements Serializable {
+
+    }
+}
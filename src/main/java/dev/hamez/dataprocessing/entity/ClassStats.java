@@ -0,0 +1,42 @@
+package dev.hamez.dataprocessing.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Running totals for one class, kept up to date by every write to the
+ * students table. Min, max and the histogram come from {@link ClassScoreCount}.
+ */
+@Entity
+@Table(name = "class_stats")
+public class ClassStats {
+
+    @Id
+    private String className;
+
+    private long students;
+
+    // Students with a score, and the sum of those scores
+    private long scored;
+
+    private long scoreSum;
+
+    public ClassStats() {}
+
+    public String getClassName() {
+        return className;
+    }
+
+    public long getStudents() {
+        return students;
+    }
+
+    public long getScored() {
+        return scored;
+    }
+
+    public long getScoreSum() {
+        return scoreSum;
+    }
+}
@@ -0,0 +1,81 @@
+package dev.hamez.dataprocessing.entity;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumSet;
+
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+/**
+ * Assigns ids before insert, so Hibernate can batch the inserts, while the
+ * column stays an identity column that COPY and plain SQL inserts still fill
+ * from its default. Ids come from the column's own sequence, {@code blockSize}
+ * at a time in one {@code generate_series} query. The sequence keeps its
+ * increment of 1, unlike a pooled sequence generator, so rows written by
+ * other paths get consecutive ids instead of one id per block. Ids are unique
+ * but, under concurrent writers, not gap-free or in insert order.
+ */
+public class IdentityBlockGenerator implements BeforeExecutionGenerator {
+
+    private static final String NEXT_BLOCK_SQL = "SELECT nextval(pg_get_serial_sequence(?, ?)) FROM generate_series(1, ?)";
+
+    private final String table;
+    private final String column;
+    private final int blockSize;
+
+    private long[] block = new long[0];
+    private int next;
+
+    public IdentityBlockGenerator(IdentityBlocks config) {
+        this.table = config.table();
+        this.column = config.column();
+        this.blockSize = Math.max(1, config.blockSize());
+    }
+
+    @Override
+    public synchronized Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+            EventType eventType) {
+        if (next == block.length) {
+            block = fetchBlock(session);
+            next = 0;
+        }
+        return block[next++];
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    private long[] fetchBlock(SharedSessionContractImplementor session) {
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement ps = jdbc.getStatementPreparer().prepareStatement(NEXT_BLOCK_SQL);
+        try {
+            ps.setString(1, table);
+            ps.setString(2, column);
+            ps.setInt(3, blockSize);
+            long[] ids = new long[blockSize];
+            int count = 0;
+            try (ResultSet rs = jdbc.getResultSetReturn().extract(ps, NEXT_BLOCK_SQL)) {
+                while (rs.next()) {
+                    ids[count++] = rs.getLong(1);
+                }
+            }
+            if (count != blockSize) {
+                throw new IllegalStateException("Expected " + blockSize + " ids from the sequence of " + table + "." + column
+                        + ", got " + count);
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Could not fetch ids for " + table, NEXT_BLOCK_SQL);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(ps);
+            jdbc.afterStatementExecution();
+        }
+    }
+}
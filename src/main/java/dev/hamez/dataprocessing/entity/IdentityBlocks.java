@@ -0,0 +1,27 @@
+package dev.hamez.dataprocessing.entity;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Ids drawn in blocks from the sequence behind an identity column, see
+ * {@link IdentityBlockGenerator}
+ */
+@IdGeneratorType(IdentityBlockGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdentityBlocks {
+
+    String table();
+
+    String column();
+
+    /**
+     * Ids fetched per database round trip
+     */
+    int blockSize() default 1000;
+}
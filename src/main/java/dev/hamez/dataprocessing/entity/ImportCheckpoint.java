@@ -0,0 +1,88 @@
+package dev.hamez.dataprocessing.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Progress of one checkpointed CSV import: the file it reads, identified by
+ * size and checksum, and the position after the last committed chunk. The
+ * importer updates it in the same transaction as each chunk.
+ */
+@Entity
+@Table(name = "import_checkpoints", indexes = @Index(name = "idx_import_checkpoints_file", columnList = "filename, checksum"))
+public class ImportCheckpoint {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(length = 36)
+    private String runId;
+
+    private String filename;
+
+    private long fileSize;
+
+    // CRC32C of the whole file
+    private long checksum;
+
+    private long byteOffset;
+
+    // CSV records after the header up to byteOffset, imported or skipped
+    private long rowsRead;
+
+    private long rowsImported;
+
+    private String status;
+
+    private Instant startedAt;
+
+    private Instant updatedAt;
+
+    public ImportCheckpoint() {}
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -2,18 +2,28 @@ package dev.hamez.dataprocessing.entity;
 
 import java.time.LocalDate;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "students")
+// Serves class-filtered reports in studentId order, including keyset paging;
+// the unique index rejects a row a checkpointed import has already written
+@Table(name = "students", indexes = {
+    @Index(name = "idx_students_class_name_student_id", columnList = "class_name, student_id"),
+    @Index(name = "uk_students_import_run_row", columnList = "import_run, import_row", unique = true)
+})
 public class Student {
 
+    // Still an identity column for COPY imports, but JPA takes ids in blocks
+    // before inserting so that its inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdentityBlocks(table = "students", column = "student_id", blockSize = 1000)
+    @Column(columnDefinition = "bigint generated by default as identity")
     private Long studentId;
 
     private String firstName;
@@ -26,6 +36,14 @@ public class Student {
 
     private Integer score;
 
+    // Checkpointed import run and CSV record number this row came from, if any
+    @JsonIgnore
+    @Column(length = 36)
+    private String importRun;
+
+    @JsonIgnore
+    private Long importRow;
+
     public Student() {}
 
     public Long getStudentId() {
@@ -75,4 +93,12 @@ public class Student {
     public void setScore(Integer score) {
         this.score = score;
     }
+
+    public String getImportRun() {
+        return importRun;
+    }
+
+    public Long getImportRow() {
+        return importRow;
+    }
 }
@@ -0,0 +1,163 @@
+package dev.hamez.dataprocessing.job;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * State of a background job. Fields are written by the worker thread and read
+ * by status requests, so they are volatile; serialized to JSON via getters.
+ * The status only moves forward, by compare-and-set, so a cancel and the
+ * worker picking the job up cannot both win.
+ */
+public class Job {
+
+    private final String id;
+    private final JobType type;
+    private final Long rowsTotal;
+    private final Instant submittedAt = Instant.now();
+
+    private final AtomicReference<JobStatus> status = new AtomicReference<>(JobStatus.QUEUED);
+    private volatile long rowsDone;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String resultPath;
+    private volatile Object result;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile Future<?> future;
+
+    public Job(String id, JobType type, Long rowsTotal) {
+        this.id = id;
+        this.type = type;
+        this.rowsTotal = rowsTotal;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public JobStatus getStatus() {
+        return status.get();
+    }
+
+    public long getRowsDone() {
+        return rowsDone;
+    }
+
+    public Long getRowsTotal() {
+        return rowsTotal;
+    }
+
+    /**
+     * Rows per second since the job started, up to now or to its finish time
+     */
+    public double getRowsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Duration.between(start, end).toMillis();
+        return millis > 0 ? rowsDone * 1000.0 / millis : 0;
+    }
+
+    public String getSubmittedAt() {
+        return submittedAt.toString();
+    }
+
+    public String getStartedAt() {
+        return startedAt == null ? null : startedAt.toString();
+    }
+
+    public String getFinishedAt() {
+        return finishedAt == null ? null : finishedAt.toString();
+    }
+
+    public String getResultPath() {
+        return resultPath;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    Instant submittedAt() {
+        return submittedAt;
+    }
+
+    Instant finishedAt() {
+        return finishedAt;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void updateProgress(long rowsDone) {
+        this.rowsDone = rowsDone;
+    }
+
+    /**
+     * Move a queued job to running
+     *
+     * @return false if the job was cancelled first and must not run
+     */
+    boolean markRunning() {
+        if (!status.compareAndSet(JobStatus.QUEUED, JobStatus.RUNNING)) {
+            return false;
+        }
+        this.startedAt = Instant.now();
+        return true;
+    }
+
+    void markSucceeded(Object outcome) {
+        if (outcome instanceof String path) {
+            this.resultPath = path;
+        } else {
+            this.result = outcome;
+        }
+        finish(JobStatus.RUNNING, JobStatus.SUCCEEDED);
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finish(JobStatus.RUNNING, JobStatus.FAILED);
+    }
+
+    void markCancelled() {
+        finish(JobStatus.RUNNING, JobStatus.CANCELLED);
+    }
+
+    /**
+     * Request cancellation. A queued job is dropped right away; a running job
+     * is interrupted and stops at its next progress report.
+     */
+    void requestCancel() {
+        cancelRequested = true;
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(true);
+        }
+        finish(JobStatus.QUEUED, JobStatus.CANCELLED);
+    }
+
+    private void finish(JobStatus from, JobStatus finalStatus) {
+        if (status.compareAndSet(from, finalStatus)) {
+            this.finishedAt = Instant.now();
+        }
+    }
+}
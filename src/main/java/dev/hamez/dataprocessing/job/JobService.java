@@ -0,0 +1,153 @@
+package dev.hamez.dataprocessing.job;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs long operations (generate, process, upload) off the request thread on a
+ * bounded pool and keeps their status for polling via {@code /api/jobs/{id}}.
+ */
+@Service
+public class JobService {
+
+    private final Logger logger = LoggerFactory.getLogger(JobService.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final int retainedJobs;
+
+    public JobService(@Value("${app.jobs.pool-size:4}") int poolSize,
+            @Value("${app.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${app.jobs.retained:1000}") int retainedJobs,
+            MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.retainedJobs = retainedJobs;
+
+        Gauge.builder("pipeline.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Background jobs currently running")
+                .register(meterRegistry);
+        Gauge.builder("pipeline.jobs.queued", executor, e -> e.getQueue().size())
+                .description("Background jobs waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a job for execution
+     *
+     * @param rowsTotal expected number of rows, or null if unknown
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public Job submit(JobType type, Long rowsTotal, JobTask task) {
+        pruneFinishedJobs();
+        Job job = new Job(UUID.randomUUID().toString(), type, rowsTotal);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, task)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        logger.info("Queued {} job {}", type, job.getId());
+        return job;
+    }
+
+    public Optional<Job> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public Collection<Job> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(Job::submittedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Request cancellation of a job
+     *
+     * @return the job, or empty if no job has that id
+     */
+    public Optional<Job> cancel(String id) {
+        Job job = jobs.get(id);
+        if (job != null && !job.getStatus().isFinished()) {
+            logger.info("Cancelling job {}", id);
+            job.requestCancel();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private void run(Job job, JobTask task) {
+        // A job cancelled while queued is already CANCELLED and stays so
+        if (!job.markRunning()) {
+            return;
+        }
+        try {
+            Object outcome = task.run(rowsDone -> {
+                job.updateProgress(rowsDone);
+                if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Job " + job.getId() + " was cancelled");
+                }
+            });
+            job.markSucceeded(outcome);
+            logger.info("Job {} completed", job.getId());
+        } catch (Exception e) {
+            // Cancellation may surface wrapped (e.g. in a SAXException), so check the flag
+            if (job.isCancelRequested() || e instanceof CancellationException) {
+                job.markCancelled();
+                logger.info("Job {} cancelled after {} rows", job.getId(), job.getRowsDone());
+            } else {
+                logger.error("Job {} failed", job.getId(), e);
+                job.markFailed(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drop the oldest finished jobs once more than the configured number are
+     * held, so the registry does not grow without bound.
+     */
+    private void pruneFinishedJobs() {
+        int excess = jobs.size() - retainedJobs + 1;
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(j -> j.getStatus().isFinished())
+                // finishedAt is set just after the status, so it can briefly be missing
+                .sorted(Comparator.comparing(Job::finishedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .limit(excess)
+                .forEach(j -> jobs.remove(j.getId()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package dev.hamez.dataprocessing.job;
+
+import dev.hamez.dataprocessing.util.ProgressListener;
+
+/**
+ * Work executed by the {@link JobService}. A {@code String} result is
+ * reported as the job's result path; anything else is reported as-is.
+ */
+@FunctionalInterface
+public interface JobTask {
+
+    Object run(ProgressListener progress) throws Exception;
+}
@@ -0,0 +1,8 @@
+package dev.hamez.dataprocessing.job;
+
+public enum JobType {
+    GENERATE,
+    PROCESS,
+    UPLOAD,
+    INGEST
+}
@@ -0,0 +1,107 @@
+package dev.hamez.dataprocessing.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Micrometer meters for the generate, process, import and export pipeline,
+ * scraped from {@code /actuator/prometheus}. Callers record once per file,
+ * sheet or chunk, never per row, so the hot loops only bump local counts.
+ * Meters are tagged with the endpoint that drives the work and with the
+ * format of the file, never its name: clients choose upload names freely, so
+ * only a fixed set of tag values keeps the number of series bounded.
+ */
+@Component
+public class PipelineMetrics {
+
+    /**
+     * Discards everything, for services built outside Spring
+     */
+    public static final PipelineMetrics NONE = new PipelineMetrics(new CompositeMeterRegistry());
+
+    // Tag values for files; anything else is "other"
+    private static final List<String> FORMATS = List.of("csv.gz", "csv.zst", "csv", "xlsx", "xls", "pdf");
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Count rows that went through a stage: generated, parsed, written,
+     * imported or exported
+     */
+    public void rows(String stage, String endpoint, String file, long rows) {
+        if (rows > 0) {
+            Counter.builder("pipeline.rows")
+                    .description("Rows handled by a pipeline stage")
+                    .tags(tags(stage, endpoint, file))
+                    .register(registry)
+                    .increment(rows);
+        }
+    }
+
+    /**
+     * Record how long one run of a stage took
+     */
+    public void time(String stage, String endpoint, String file, long nanos) {
+        Timer.builder("pipeline.stage")
+                .description("Duration of one run of a pipeline stage")
+                .tags(tags(stage, endpoint, file))
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count the size of a file just written to the storage directory
+     */
+    public void bytesWritten(String endpoint, Path file) {
+        try {
+            Counter.builder("pipeline.storage.written")
+                    .description("Bytes of files written to the storage directory")
+                    .baseUnit("bytes")
+                    .tags(Tags.of("endpoint", endpoint, "format", format(file.getFileName().toString())))
+                    .register(registry)
+                    .increment(Files.size(file));
+        } catch (IOException e) {
+            // The file is gone already; nothing to count
+        }
+    }
+
+    private static Tags tags(String stage, String endpoint, String file) {
+        return Tags.of("stage", stage, "endpoint", endpoint, "format", format(file));
+    }
+
+    /**
+     * Format of a file from its name, one of {@link #FORMATS}, {@code other}
+     * or {@code none}
+     */
+    static String format(String file) {
+        if (file == null) {
+            return "none";
+        }
+        String name = file.toLowerCase(Locale.ROOT);
+        for (String format : FORMATS) {
+            if (name.endsWith("." + format)) {
+                return format;
+            }
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,105 @@
+package dev.hamez.dataprocessing.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Changes to the per-class statistics made by one batch of student writes.
+ * Rows are counted in memory as they are written; {@link #apply(Connection)}
+ * then adds the totals to {@code class_stats} and {@code class_score_counts}
+ * with upserts on the writer's connection, so the statistics commit or roll
+ * back together with the rows. Students without a class are not counted.
+ */
+public class ClassStatsDelta {
+
+    private static final String UPSERT_STATS = "INSERT INTO class_stats (class_name, students, scored, score_sum) VALUES (?, ?, ?, ?)"
+            + " ON CONFLICT (class_name) DO UPDATE SET students = class_stats.students + excluded.students,"
+            + " scored = class_stats.scored + excluded.scored, score_sum = class_stats.score_sum + excluded.score_sum";
+    private static final String UPSERT_SCORES = "INSERT INTO class_score_counts (class_name, score, students) VALUES (?, ?, ?)"
+            + " ON CONFLICT (class_name, score) DO UPDATE SET students = class_score_counts.students + excluded.students";
+
+    // Sorted, so concurrent writers lock the same rows in the same order
+    private final Map<String, ClassTotals> classes = new TreeMap<>();
+    private boolean removals;
+
+    public void add(String className, Integer score) {
+        count(className, score, 1);
+    }
+
+    /**
+     * Take back a row counted earlier, e.g. the old values of an updated student
+     */
+    public void remove(String className, Integer score) {
+        count(className, score, -1);
+        removals = true;
+    }
+
+    public boolean isEmpty() {
+        return classes.isEmpty();
+    }
+
+    public void clear() {
+        classes.clear();
+        removals = false;
+    }
+
+    /**
+     * Add the counted changes to the statistics tables. Committing is left to
+     * the caller.
+     */
+    public void apply(Connection connection) throws SQLException {
+        if (classes.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stats = connection.prepareStatement(UPSERT_STATS);
+                PreparedStatement scores = connection.prepareStatement(UPSERT_SCORES)) {
+            for (Map.Entry<String, ClassTotals> entry : classes.entrySet()) {
+                ClassTotals totals = entry.getValue();
+                stats.setString(1, entry.getKey());
+                stats.setLong(2, totals.students);
+                stats.setLong(3, totals.scored);
+                stats.setLong(4, totals.scoreSum);
+                stats.addBatch();
+                for (Map.Entry<Integer, long[]> score : totals.scoreCounts.entrySet()) {
+                    scores.setString(1, entry.getKey());
+                    scores.setInt(2, score.getKey());
+                    scores.setLong(3, score.getValue()[0]);
+                    scores.addBatch();
+                }
+            }
+            stats.executeBatch();
+            scores.executeBatch();
+        }
+        if (removals) {
+            try (Statement st = connection.createStatement()) {
+                st.executeUpdate("DELETE FROM class_score_counts WHERE students <= 0");
+                st.executeUpdate("DELETE FROM class_stats WHERE students <= 0");
+            }
+        }
+    }
+
+    private void count(String className, Integer score, int sign) {
+        if (className == null) {
+            return;
+        }
+        ClassTotals totals = classes.computeIfAbsent(className, k -> new ClassTotals());
+        totals.students += sign;
+        if (score != null) {
+            totals.scored += sign;
+            totals.scoreSum += sign * (long) score;
+            totals.scoreCounts.computeIfAbsent(score, k -> new long[1])[0] += sign;
+        }
+    }
+
+    private static final class ClassTotals {
+
+        long students;
+        long scored;
+        long scoreSum;
+        final Map<Integer, long[]> scoreCounts = new TreeMap<>();
+    }
+}
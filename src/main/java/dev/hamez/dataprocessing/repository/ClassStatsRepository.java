@@ -0,0 +1,19 @@
+package dev.hamez.dataprocessing.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import dev.hamez.dataprocessing.entity.ClassScoreCount;
+import dev.hamez.dataprocessing.entity.ClassStats;
+
+public interface ClassStatsRepository extends JpaRepository<ClassStats, String> {
+
+    @Query("select c from ClassStats c where (:className is null or c.className = :className) and c.students > 0 order by c.className")
+    List<ClassStats> findStats(@Param("className") String className);
+
+    @Query("select c from ClassScoreCount c where (:className is null or c.className = :className) and c.students > 0 order by c.className, c.score")
+    List<ClassScoreCount> findScoreCounts(@Param("className") String className);
+}
@@ -0,0 +1,12 @@
+package dev.hamez.dataprocessing.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import dev.hamez.dataprocessing.entity.ImportCheckpoint;
+
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+
+    List<ImportCheckpoint> findByFilenameOrderByStartedAtDesc(String filename);
+}
@@ -0,0 +1,160 @@
+package dev.hamez.dataprocessing.repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Writes student rows into the students table through PostgreSQL's
+ * {@code COPY ... FROM STDIN}. Rows are encoded as CSV straight into the copy
+ * stream, so nothing is buffered beyond the writer's char buffer. Each call to
+ * {@link #flush()} ends the current COPY; committing is left to the caller.
+ */
+public class StudentCopyWriter implements AutoCloseable {
+
+    private static final String COPY_SQL
+            = "COPY students (first_name, last_name, dob, class_name, score) FROM STDIN WITH (FORMAT csv)";
+    private static final String COPY_TRACKED_SQL
+            = "COPY students (first_name, last_name, dob, class_name, score, import_run, import_row) FROM STDIN WITH (FORMAT csv)";
+
+    private final CopyManager copyManager;
+    private final String importRun;
+    private PGCopyOutputStream copy;
+    private Writer out;
+    private long pendingRows = 0;
+    private long rowsWritten = 0;
+
+    public StudentCopyWriter(Connection connection) throws SQLException {
+        this(connection, null);
+    }
+
+    /**
+     * Writer that tags every row with an import run and record number, see
+     * {@link #addRow(long, CharSequence, CharSequence, CharSequence, CharSequence, Integer)}
+     */
+    public StudentCopyWriter(Connection connection, String importRun) throws SQLException {
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.importRun = importRun;
+    }
+
+    /**
+     * Append one row to the current COPY, starting a new one if needed. Text
+     * values are always quoted so that an empty string stays distinct from
+     * NULL; a null {@code dob} or {@code score} is written as NULL.
+     */
+    public void addRow(CharSequence firstName, CharSequence lastName, CharSequence dob,
+            CharSequence className, Integer score) throws IOException, SQLException {
+        startCopy(COPY_SQL);
+        writeFields(firstName, lastName, dob, className, score);
+        out.write('\n');
+        pendingRows++;
+    }
+
+    /**
+     * Append one row tagged with this writer's import run and the number of
+     * the CSV record it came from. The pair is unique in the students table,
+     * so a record can never be imported twice by the same run.
+     */
+    public void addRow(long importRow, CharSequence firstName, CharSequence lastName, CharSequence dob,
+            CharSequence className, Integer score) throws IOException, SQLException {
+        startCopy(COPY_TRACKED_SQL);
+        writeFields(firstName, lastName, dob, className, score);
+        out.write(',');
+        writeQuoted(importRun);
+        out.write(',');
+        out.write(Long.toString(importRow));
+        out.write('\n');
+        pendingRows++;
+    }
+
+    private void startCopy(String sql) throws SQLException {
+        if (out == null) {
+            copy = new PGCopyOutputStream(copyManager.copyIn(sql));
+            out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), 64 * 1024);
+        }
+    }
+
+    private void writeFields(CharSequence firstName, CharSequence lastName, CharSequence dob,
+            CharSequence className, Integer score) throws IOException {
+        writeQuoted(firstName);
+        out.write(',');
+        writeQuoted(lastName);
+        out.write(',');
+        if (dob != null) {
+            out.append(dob);
+        }
+        out.write(',');
+        writeQuoted(className);
+        out.write(',');
+        if (score != null) {
+            out.write(Integer.toString(score));
+        }
+    }
+
+    /**
+     * Finish the current COPY so its rows become visible to the transaction.
+     *
+     * @return number of rows sent by this COPY
+     */
+    public long flush() throws IOException {
+        if (out == null) {
+            return 0;
+        }
+        out.close();
+        out = null;
+        copy = null;
+        long flushed = pendingRows;
+        rowsWritten += flushed;
+        pendingRows = 0;
+        return flushed;
+    }
+
+    public long getPendingRows() {
+        return pendingRows;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Abandon a COPY that was not flushed, e.g. after a failure part way
+     * through a chunk. Flushed rows are unaffected.
+     */
+    @Override
+    public void close() throws IOException {
+        if (copy != null && copy.isActive()) {
+            try {
+                copy.cancelCopy();
+            } catch (SQLException e) {
+                throw new IOException("Failed to cancel COPY", e);
+            }
+        }
+        copy = null;
+        out = null;
+        pendingRows = 0;
+    }
+
+    private void writeQuoted(CharSequence value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                out.write('"');
+            }
+            out.write(ch);
+        }
+        out.write('"');
+    }
+}
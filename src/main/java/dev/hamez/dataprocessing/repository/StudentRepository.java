@@ -1,14 +1,18 @@
 package dev.hamez.dataprocessing.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import dev.hamez.dataprocessing.entity.Student;
+import jakarta.persistence.QueryHint;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
 
@@ -17,4 +21,23 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
 
     @Query("select s from Student s where (:className is null or s.className = :className)")
     List<Student> findByClassName(@Param("className") String className);
+
+    // Keyset pages: rows after a studentId, in studentId order. Pass
+    // PageRequest.of(0, n) to limit; no count query is issued for a List.
+    @Query("select s from Student s where s.studentId > :afterId order by s.studentId")
+    List<Student> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select s from Student s where s.className = :className and s.studentId > :afterId order by s.studentId")
+    List<Student> findClassPageAfter(@Param("className") String className, @Param("afterId") long afterId, Pageable pageable);
+
+    long countByClassName(String className);
+
+    // Forward-only cursor for exports; PostgreSQL only honours the fetch size
+    // inside a transaction, so callers must run in one
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select s from Student s where (:className is null or s.className = :className) order by s.studentId")
+    Stream<Student> streamByClassName(@Param("className") String className);
 }
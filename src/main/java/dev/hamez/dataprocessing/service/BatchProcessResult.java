@@ -0,0 +1,37 @@
+package dev.hamez.dataprocessing.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of processing several workbooks and/or sheets on a worker pool.
+ * Throughput figures cover the whole batch, wall clock.
+ */
+public class BatchProcessResult {
+
+    public final int files;
+    public final int sheets;
+    public final int threads;
+    public final long rows;
+    public final long bytesRead;
+    public final long durationMs;
+    public final double rowsPerSecond;
+    public final double megabytesPerSecond;
+    public final List<String> outputs;
+    // Input file name -> error, for files that failed; their outputs are removed
+    public final Map<String, String> errors;
+
+    public BatchProcessResult(int files, int sheets, int threads, long rows, long bytesRead, long durationMs,
+            List<String> outputs, Map<String, String> errors) {
+        this.files = files;
+        this.sheets = sheets;
+        this.threads = threads;
+        this.rows = rows;
+        this.bytesRead = bytesRead;
+        this.durationMs = durationMs;
+        this.rowsPerSecond = durationMs > 0 ? rows * 1000.0 / durationMs : rows;
+        this.megabytesPerSecond = durationMs > 0 ? bytesRead / 1048576.0 * 1000 / durationMs : 0;
+        this.outputs = outputs;
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,330 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Receives large files in chunks. Each chunk is streamed from the request
+ * body into a part file under {@code .uploads} in the storage directory with
+ * positional writes, so chunks may arrive in any order, in parallel, or again
+ * after a failure; at most one copy buffer per request is on the heap. The
+ * byte ranges received are kept next to the part file, so an upload survives
+ * a restart. Completing checks that every byte arrived and that the SHA-256
+ * matches, then moves the file into the storage directory where
+ * {@code /process}, {@code /upload} and {@code /ingest} pick it up by name.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final String UPLOAD_DIR = ".uploads";
+    private static final int COPY_BUFFER = 256 * 1024;
+    private static final List<String> EXTENSIONS = List.of("xlsx", "xls", "csv");
+
+    private final DataProcessingService dataService;
+    private final long maxBytes;
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(DataProcessingService dataService,
+            @Value("${app.upload.max-size-mb:20480}") long maxSizeMb) {
+        this.dataService = dataService;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Start an upload of {@code size} bytes that will be stored as
+     * {@code filename}
+     *
+     * @throws IllegalArgumentException for a bad name or size
+     * @throws IllegalStateException if the storage directory already has the
+     * file
+     */
+    public UploadStatus start(String filename, long size) throws IOException {
+        if (filename == null || !filename.equals(FilenameUtils.getName(filename)) || filename.startsWith(".")
+                || !EXTENSIONS.contains(FilenameUtils.getExtension(filename).toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Expected a plain .xlsx, .xls or .csv file name: " + filename);
+        }
+        if (size < 0 || size > maxBytes) {
+            throw new IllegalArgumentException("Size must be between 0 and " + maxBytes + " bytes: " + size);
+        }
+        if (Files.exists(dataService.resolveOutputFile(filename))) {
+            throw new IllegalStateException("File already exists: " + filename);
+        }
+        Path dir = dataService.resolveOutputFile(UPLOAD_DIR);
+        Files.createDirectories(dir);
+        Upload upload = new Upload(UUID.randomUUID().toString(), filename, size, dir);
+        // Sized up front, so positional writes never extend the file
+        try (FileChannel channel = FileChannel.open(upload.part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            if (size > 0) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+        }
+        upload.save();
+        uploads.put(upload.id, upload);
+        logger.info("Started upload {} of {} ({} bytes)", upload.id, filename, size);
+        return upload.status(null);
+    }
+
+    /**
+     * Write the bytes of {@code body} at {@code offset}. If the stream breaks
+     * off, the bytes that did arrive still count.
+     *
+     * @param length the declared body length, or -1 to read to the end
+     * @throws IllegalArgumentException if the chunk runs past the file size or
+     * the body is shorter than declared
+     */
+    public UploadStatus writeChunk(String uploadId, long offset, long length, InputStream body) throws IOException {
+        Upload upload = find(uploadId);
+        if (offset < 0 || offset > upload.size || length > upload.size - offset) {
+            throw new IllegalArgumentException("Chunk " + offset + "+" + length + " is outside the file size " + upload.size);
+        }
+        upload.lock.readLock().lock();
+        try {
+            upload.checkOpen();
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(upload.part, StandardOpenOption.WRITE)) {
+                try {
+                    ReadableByteChannel in = Channels.newChannel(body);
+                    ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER);
+                    while (in.read(buffer) != -1) {
+                        buffer.flip();
+                        if (offset + written + buffer.remaining() > upload.size) {
+                            throw new IllegalArgumentException("Chunk at " + offset + " runs past the file size " + upload.size);
+                        }
+                        while (buffer.hasRemaining()) {
+                            written += channel.write(buffer, offset + written);
+                        }
+                        buffer.clear();
+                    }
+                } finally {
+                    if (written > 0) {
+                        // Only bytes on disk are recorded as received
+                        channel.force(false);
+                        upload.received(offset, offset + written);
+                    }
+                }
+            }
+            if (length >= 0 && written != length) {
+                throw new IllegalArgumentException("Chunk at " + offset + " ended after " + written + " of " + length + " bytes");
+            }
+            return upload.status(null);
+        } finally {
+            upload.lock.readLock().unlock();
+        }
+    }
+
+    public UploadStatus status(String uploadId) throws IOException {
+        return find(uploadId).status(null);
+    }
+
+    /**
+     * Verify the upload and move it into the storage directory
+     *
+     * @throws IllegalStateException if bytes are missing, the checksum does
+     * not match or the file appeared in the storage directory meanwhile
+     */
+    public UploadStatus complete(String uploadId, String sha256) throws Exception {
+        Upload upload = find(uploadId);
+        upload.lock.writeLock().lock();
+        try {
+            upload.checkOpen();
+            UploadStatus status = upload.status(null);
+            if (status.received != upload.size) {
+                throw new IllegalStateException("Upload " + uploadId + " is missing " + (upload.size - status.received) + " bytes");
+            }
+            String actual = sha256(upload.part);
+            if (!actual.equalsIgnoreCase(sha256.trim())) {
+                throw new IllegalStateException("Checksum mismatch for upload " + uploadId + ": expected " + sha256 + ", got " + actual);
+            }
+            try {
+                // A plain move checks the target first and fails rather than overwrite; ATOMIC_MOVE
+                // would rename(2) over it. The part file is on the same file system, so this is still a rename.
+                Files.move(upload.part, dataService.resolveOutputFile(upload.filename));
+            } catch (FileAlreadyExistsException e) {
+                throw new IllegalStateException("File already exists: " + upload.filename);
+            }
+            upload.completed = true;
+            Files.deleteIfExists(upload.meta);
+            uploads.remove(uploadId);
+            logger.info("Completed upload {} as {} ({} bytes)", uploadId, upload.filename, upload.size);
+            return upload.status(actual);
+        } finally {
+            upload.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop an unfinished upload and its part file
+     */
+    public void abort(String uploadId) throws IOException {
+        Upload upload = find(uploadId);
+        upload.lock.writeLock().lock();
+        try {
+            upload.checkOpen();
+            upload.completed = true;
+            Files.deleteIfExists(upload.part);
+            Files.deleteIfExists(upload.meta);
+            uploads.remove(uploadId);
+            logger.info("Aborted upload {} of {}", uploadId, upload.filename);
+        } finally {
+            upload.lock.writeLock().unlock();
+        }
+    }
+
+    private Upload find(String uploadId) throws IOException {
+        try {
+            // Also keeps the id from naming anything outside the upload directory
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new NoSuchElementException("Upload not found: " + uploadId);
+        }
+        Upload upload = uploads.get(uploadId);
+        if (upload != null) {
+            return upload;
+        }
+        // Started before a restart
+        Path dir = dataService.resolveOutputFile(UPLOAD_DIR);
+        Path meta = dir.resolve(uploadId + ".properties");
+        if (!Files.exists(meta)) {
+            throw new NoSuchElementException("Upload not found: " + uploadId);
+        }
+        Upload loaded = Upload.load(uploadId, dir);
+        Upload existing = uploads.putIfAbsent(uploadId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static String sha256(Path file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * One upload in progress. Chunk writes share the read lock; completing
+     * and aborting take the write lock, so they never race a write.
+     */
+    private static final class Upload {
+
+        final String id;
+        final String filename;
+        final long size;
+        final Path part;
+        final Path meta;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // Received byte ranges, start to end, merged so none touch
+        private final TreeMap<Long, Long> ranges = new TreeMap<>();
+        volatile boolean completed;
+
+        Upload(String id, String filename, long size, Path dir) {
+            this.id = id;
+            this.filename = filename;
+            this.size = size;
+            this.part = dir.resolve(id + ".part");
+            this.meta = dir.resolve(id + ".properties");
+        }
+
+        static Upload load(String id, Path dir) throws IOException {
+            Properties props = new Properties();
+            try (Reader reader = Files.newBufferedReader(dir.resolve(id + ".properties"), StandardCharsets.UTF_8)) {
+                props.load(reader);
+            }
+            Upload upload = new Upload(id, props.getProperty("filename"), Long.parseLong(props.getProperty("size")), dir);
+            String ranges = props.getProperty("ranges", "");
+            for (String range : ranges.isEmpty() ? new String[0] : ranges.split(",")) {
+                int dash = range.indexOf('-');
+                upload.ranges.put(Long.parseLong(range.substring(0, dash)), Long.parseLong(range.substring(dash + 1)));
+            }
+            return upload;
+        }
+
+        void checkOpen() {
+            if (completed) {
+                throw new IllegalStateException("Upload " + id + " is already finished");
+            }
+        }
+
+        synchronized void received(long start, long end) throws IOException {
+            Map.Entry<Long, Long> before = ranges.floorEntry(start);
+            if (before != null && before.getValue() >= start) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+            }
+            for (Map.Entry<Long, Long> next = ranges.ceilingEntry(start); next != null && next.getKey() <= end;
+                    next = ranges.ceilingEntry(start)) {
+                end = Math.max(end, next.getValue());
+                ranges.remove(next.getKey());
+            }
+            ranges.put(start, end);
+            save();
+        }
+
+        synchronized void save() throws IOException {
+            Properties props = new Properties();
+            props.setProperty("filename", filename);
+            props.setProperty("size", Long.toString(size));
+            StringBuilder sb = new StringBuilder();
+            ranges.forEach((start, end) -> sb.append(sb.isEmpty() ? "" : ",").append(start).append('-').append(end));
+            props.setProperty("ranges", sb.toString());
+            Path tmp = meta.resolveSibling(meta.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(writer, null);
+            }
+            Files.move(tmp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        synchronized UploadStatus status(String sha256) {
+            long received = 0;
+            List<UploadStatus.Range> missing = new ArrayList<>();
+            long next = 0;
+            for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+                if (range.getKey() > next) {
+                    missing.add(new UploadStatus.Range(next, range.getKey()));
+                }
+                received += range.getValue() - range.getKey();
+                next = range.getValue();
+            }
+            if (next < size) {
+                missing.add(new UploadStatus.Range(next, size));
+            }
+            return new UploadStatus(id, filename, size, received, missing, completed, sha256);
+        }
+    }
+}
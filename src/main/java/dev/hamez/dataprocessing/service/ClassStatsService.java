@@ -0,0 +1,107 @@
+package dev.hamez.dataprocessing.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import dev.hamez.dataprocessing.entity.ClassScoreCount;
+import dev.hamez.dataprocessing.entity.ClassStats;
+import dev.hamez.dataprocessing.repository.ClassStatsDelta;
+import dev.hamez.dataprocessing.repository.ClassStatsRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Per-class score statistics served from summary tables instead of scanning
+ * students. Writers add their changes through {@link ClassStatsDelta} in the
+ * same transaction as the rows; {@link #reconcile()} rebuilds the tables from
+ * scratch in case they drift, e.g. after rows were changed outside the app.
+ */
+@Service
+public class ClassStatsService {
+
+    private final Logger logger = LoggerFactory.getLogger(ClassStatsService.class);
+
+    private final ClassStatsRepository repository;
+    private final EntityManager entityManager;
+
+    public ClassStatsService(ClassStatsRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Statistics of every class, or of one class if className is given
+     *
+     * @param bucketWidth score range covered by each histogram bucket
+     */
+    @Transactional(readOnly = true)
+    public List<ClassSummary> stats(String className, int bucketWidth) {
+        Map<String, List<ClassScoreCount>> scores = new LinkedHashMap<>();
+        for (ClassScoreCount count : repository.findScoreCounts(className)) {
+            scores.computeIfAbsent(count.getClassName(), k -> new ArrayList<>()).add(count);
+        }
+        List<ClassSummary> result = new ArrayList<>();
+        for (ClassStats stats : repository.findStats(className)) {
+            result.add(new ClassSummary(stats, scores.getOrDefault(stats.getClassName(), List.of()), bucketWidth));
+        }
+        return result;
+    }
+
+    /**
+     * Add a delta within the caller's transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(ClassStatsDelta delta) {
+        if (!delta.isEmpty()) {
+            entityManager.unwrap(Session.class).doWork(delta::apply);
+        }
+    }
+
+    /**
+     * Build the statistics on first start against an existing students table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        boolean hasStudents = (Boolean) entityManager.createNativeQuery("SELECT exists(SELECT 1 FROM students)").getSingleResult();
+        if (hasStudents && repository.count() == 0) {
+            logger.info("Class statistics are empty, building them from the students table");
+            reconcile();
+        }
+    }
+
+    /**
+     * Recompute the statistics from the students table. Writers that commit
+     * while this runs wait on the table locks and apply their deltas on top
+     * of the rebuilt totals, so no write is counted twice or lost.
+     *
+     * @return number of classes
+     */
+    @Transactional
+    @Scheduled(cron = "${app.stats.reconcile-cron:-}")
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+        entityManager.createNativeQuery("LOCK TABLE class_stats, class_score_counts IN EXCLUSIVE MODE").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM class_score_counts").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM class_stats").executeUpdate();
+        int classes = entityManager.createNativeQuery("INSERT INTO class_stats (class_name, students, scored, score_sum)"
+                + " SELECT class_name, count(*), count(score), coalesce(sum(score), 0) FROM students"
+                + " WHERE class_name IS NOT NULL GROUP BY class_name").executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO class_score_counts (class_name, score, students)"
+                + " SELECT class_name, score, count(*) FROM students"
+                + " WHERE class_name IS NOT NULL AND score IS NOT NULL GROUP BY class_name, score").executeUpdate();
+        logger.info("Rebuilt statistics of {} classes in {} ms", classes, System.currentTimeMillis() - start);
+        return classes;
+    }
+}
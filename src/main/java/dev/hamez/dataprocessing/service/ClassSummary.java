@@ -0,0 +1,53 @@
+package dev.hamez.dataprocessing.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.hamez.dataprocessing.entity.ClassScoreCount;
+import dev.hamez.dataprocessing.entity.ClassStats;
+
+/**
+ * Score statistics of one class. The histogram maps the lowest score of each
+ * bucket to the number of students in it; empty buckets are left out. Mean,
+ * min and max are null when no student of the class has a score.
+ */
+public class ClassSummary {
+
+    public final String className;
+    public final long students;
+    public final long scored;
+    public final Double meanScore;
+    public final Integer minScore;
+    public final Integer maxScore;
+    public final int bucketWidth;
+    public final Map<Integer, Long> histogram;
+
+    ClassSummary(ClassStats stats, List<ClassScoreCount> scores, int bucketWidth) {
+        this.className = stats.getClassName();
+        this.students = stats.getStudents();
+        this.scored = stats.getScored();
+        this.meanScore = scored > 0 ? (double) stats.getScoreSum() / scored : null;
+        // Scores arrive in ascending order
+        this.minScore = scores.isEmpty() ? null : scores.get(0).getScore();
+        this.maxScore = scores.isEmpty() ? null : scores.get(scores.size() - 1).getScore();
+        this.bucketWidth = bucketWidth;
+        this.histogram = new LinkedHashMap<>();
+        for (ClassScoreCount score : scores) {
+            int bucket = Math.floorDiv(score.getScore(), bucketWidth) * bucketWidth;
+            histogram.merge(bucket, score.getStudents(), Long::sum);
+        }
+    }
+
+    ClassSummary(String className, long students, long scored, long scoreSum, Integer minScore, Integer maxScore,
+            int bucketWidth, Map<Integer, Long> histogram) {
+        this.className = className;
+        this.students = students;
+        this.scored = scored;
+        this.meanScore = scored > 0 ? (double) scoreSum / scored : null;
+        this.minScore = minScore;
+        this.maxScore = maxScore;
+        this.bucketWidth = bucketWidth;
+        this.histogram = histogram;
+    }
+}
@@ -0,0 +1,84 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes {@link RowBatch}es as CSV, adding the score offset to the last
+ * column of every row but the header. Output matches {@code CSVWriter}
+ * defaults: every field quoted, quotes doubled, {@code \n} line endings. Each
+ * batch goes to the writer in a single call. Not thread-safe.
+ */
+final class CsvBatchWriter {
+
+    private final Writer out;
+    private final int scoreOffset;
+    private char[] buf = new char[64 * 1024];
+
+    CsvBatchWriter(Writer out, int scoreOffset) {
+        this.out = out;
+        this.scoreOffset = scoreOffset;
+    }
+
+    void write(RowBatch batch) throws IOException {
+        int len = 0;
+        int cell = 0;
+        for (int r = 0; r < batch.size; r++) {
+            int rowEnd = batch.rowCellEnds[r];
+            for (int c = cell; c < rowEnd; c++) {
+                int from = c == 0 ? 0 : batch.cellEnds[c - 1];
+                int to = batch.cellEnds[c];
+                // Worst case: every char is a quote, plus quotes, comma and int digits
+                ensureCapacity(len + 2 * (to - from) + 16);
+                if (c > cell) {
+                    buf[len++] = ',';
+                }
+                buf[len++] = '"';
+                int adjusted = c == rowEnd - 1 && batch.rowNums[r] != 1 && to > from
+                        ? writeScore(batch.chars, from, to, len) : -1;
+                if (adjusted >= 0) {
+                    len = adjusted;
+                } else {
+                    for (int i = from; i < to; i++) {
+                        char ch = batch.chars[i];
+                        if (ch == '"') {
+                            buf[len++] = '"';
+                        }
+                        buf[len++] = ch;
+                    }
+                }
+                buf[len++] = '"';
+            }
+            ensureCapacity(len + 1);
+            buf[len++] = '\n';
+            cell = rowEnd;
+        }
+        out.write(buf, 0, len);
+    }
+
+    /**
+     * Write score + offset into the buffer at {@code pos}
+     *
+     * @return the new position, or -1 if the value is not a number
+     */
+    private int writeScore(char[] chars, int from, int to, int pos) {
+        int value;
+        try {
+            value = DataProcessingService.parseScore(CharBuffer.wrap(chars, from, to - from)) + scoreOffset;
+        } catch (NumberFormatException ex) {
+            // Leave value as-is if not a number
+            return -1;
+        }
+        String digits = Integer.toString(value);
+        digits.getChars(0, digits.length(), buf, pos);
+        return pos + digits.length();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, capacity));
+        }
+    }
+}
@@ -0,0 +1,694 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.opencsv.CSVReader;
+
+import dev.hamez.dataprocessing.entity.ImportCheckpoint;
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.repository.ClassStatsDelta;
+import dev.hamez.dataprocessing.repository.ImportCheckpointRepository;
+import dev.hamez.dataprocessing.repository.StudentCopyWriter;
+import dev.hamez.dataprocessing.util.Compression;
+import dev.hamez.dataprocessing.util.MappedCsvReader;
+import dev.hamez.dataprocessing.util.OffsetCsvReader;
+import dev.hamez.dataprocessing.util.ProgressListener;
+import dev.hamez.dataprocessing.util.StreamingExcelReader;
+
+/**
+ * Streams a processed CSV, or a workbook directly, from the storage directory
+ * into the students table using PostgreSQL COPY. Rows are read one at a time and committed in chunks,
+ * so memory use does not depend on the size of the file. Each chunk updates
+ * the per-class statistics in the same transaction.
+ */
+@Service
+public class CsvImportService {
+
+    /**
+     * How {@code /upload} loads a CSV
+     */
+    public enum ImportMode {
+        /**
+         * Read the whole file and persist it with saveAll
+         */
+        JPA,
+        /**
+         * Stream rows through COPY in committed chunks
+         */
+        COPY,
+        /**
+         * COPY that resumes a failed import of the same file
+         */
+        CHECKPOINT,
+        /**
+         * COPY of byte ranges over separate connections
+         */
+        PARALLEL;
+
+        public static ImportMode parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(CsvImportService.class);
+
+    private final DataSource dataSource;
+    private final DataProcessingService dataService;
+    private final StudentQueryCache queryCache;
+    private final PipelineMetrics metrics;
+    private final ImportCheckpointRepository checkpoints;
+    private final StudentColumnStore columnStore;
+    private final int chunkSize;
+    // Partitions of a partitioned import when the caller does not choose, and
+    // the most allowed; each holds a pooled connection while it runs
+    private final int defaultPartitions;
+    private final int maxPartitions;
+
+    // Rows between progress reports to job listeners
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    private static final String ENDPOINT = "/api/data/upload";
+    private static final String INGEST_ENDPOINT = "/api/data/ingest";
+
+    // A workbook loaded directly gets the score adjustments of /process and /upload together
+    private static final int PROCESS_SCORE_OFFSET = 10;
+    private static final int UPLOAD_SCORE_OFFSET = 5;
+
+    public CsvImportService(DataSource dataSource, DataProcessingService dataService, StudentQueryCache queryCache,
+            PipelineMetrics metrics, ImportCheckpointRepository checkpoints,
+            StudentColumnStore columnStore, @Value("${app.import.chunk-size:50000}") int chunkSize,
+            @Value("${app.import.partitions:4}") int defaultPartitions,
+            @Value("${app.import.max-partitions:8}") int maxPartitions) {
+        this.dataSource = dataSource;
+        this.dataService = dataService;
+        this.queryCache = queryCache;
+        this.metrics = metrics;
+        this.checkpoints = checkpoints;
+        this.columnStore = columnStore;
+        this.chunkSize = chunkSize;
+        this.defaultPartitions = defaultPartitions;
+        this.maxPartitions = maxPartitions;
+    }
+
+    /**
+     * Import a CSV from the storage directory, adding {@code addToScore} to
+     * every score. Each chunk of rows is sent as one COPY and committed.
+     */
+    public ImportResult importFromStorage(String filename, int addToScore) throws Exception {
+        return importFromStorage(filename, addToScore, ProgressListener.NONE);
+    }
+
+    /**
+     * Same as {@link #importFromStorage(String, int)}, reporting progress
+     * every {@value #PROGRESS_INTERVAL} rows. If the listener aborts the
+     * import, the chunk in flight is rolled back; earlier chunks stay committed.
+     */
+    public ImportResult importFromStorage(String filename, int addToScore, ProgressListener progress) throws Exception {
+        Path csvPath = dataService.resolveStorageFile(filename);
+
+        logger.info("Starting COPY import of {} (chunk size {})", filename, chunkSize);
+        long startTime = System.currentTimeMillis();
+        long chunks = 0;
+        long nextProgressLog = 100000;
+        // Classes written by the chunk in flight, evicted from the report cache once it commits
+        Set<String> chunkClasses = new HashSet<>();
+        // Class statistics of the chunk in flight, committed with its rows
+        ClassStatsDelta chunkStats = new ClassStatsDelta();
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            // gzip and zstd files are decompressed as they are read
+            try (var reader = Compression.newReader(csvPath); var csv = new CSVReader(reader);
+                    StudentCopyWriter writer = new StudentCopyWriter(conn)) {
+                String[] row;
+                boolean first = true;
+                while ((row = csv.readNext()) != null) {
+                    if (first) {
+                        first = false;
+                        continue;
+                    }
+                    if (row.length < 6) {
+                        continue;
+                    }
+                    Integer score = parseScore(row[5], addToScore);
+                    writer.addRow(row[1], row[2], parseDob(row[3]), row[4], score);
+                    chunkClasses.add(row[4]);
+                    chunkStats.add(row[4], score);
+                    long rowsRead = writer.getRowsWritten() + writer.getPendingRows();
+                    if (rowsRead % PROGRESS_INTERVAL == 0) {
+                        progress.onProgress(rowsRead);
+                    }
+
+                    if (writer.getPendingRows() >= chunkSize) {
+                        commitChunk(conn, writer, chunkStats, chunkClasses, ENDPOINT, filename, null);
+                        chunks++;
+                        // Log progress every 100k rows
+                        if (writer.getRowsWritten() >= nextProgressLog) {
+                            logger.info("Imported {} rows...", writer.getRowsWritten());
+                            nextProgressLog += 100000;
+                        }
+                    }
+                }
+                if (commitChunk(conn, writer, chunkStats, chunkClasses, ENDPOINT, filename, null) > 0) {
+                    chunks++;
+                }
+
+                progress.onProgress(writer.getRowsWritten());
+
+                long duration = System.currentTimeMillis() - startTime;
+                ImportResult result = new ImportResult(writer.getRowsWritten(), chunks, duration);
+                logger.info("Imported {} rows from {} in {} ms ({} rows/sec)",
+                        result.rows, csvPath.toAbsolutePath(), duration, Math.round(result.rowsPerSecond));
+                return result;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Import a CSV like {@link #importFromStorage(String, int, ProgressListener)},
+     * but split into byte ranges on record boundaries that are loaded at the
+     * same time, each over its own pooled connection and COPY stream. Every
+     * partition commits its own chunks; a partition that fails rolls back its
+     * chunk in flight and is reported, while the others carry on.
+     *
+     * @param partitions number of ranges and connections, capped at
+     * {@code app.import.max-partitions}; 0 for {@code app.import.partitions}
+     */
+    public PartitionedImportResult importPartitioned(String filename, int addToScore, int partitions,
+            ProgressListener progress) throws Exception {
+        Path csvPath = uncompressedCsv(filename);
+        long startTime = System.currentTimeMillis();
+        int requested = Math.min(partitions > 0 ? partitions : defaultPartitions, maxPartitions);
+        long[] bounds = MappedCsvReader.split(csvPath, Math.max(1, requested));
+        int count = bounds.length - 1;
+        logger.info("Starting partitioned import of {} in {} partition(s) (chunk size {})", filename, count, chunkSize);
+
+        AtomicLong rowsDone = new AtomicLong();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(count, r -> new Thread(r, "import-" + threadCount.incrementAndGet()));
+        List<PartitionedImportResult.Partition> results = new ArrayList<>(count);
+        try {
+            List<Future<PartitionedImportResult.Partition>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> importPartition(csvPath, filename, index, bounds[index], bounds[index + 1],
+                        addToScore, rowsDone, progress)));
+            }
+            for (Future<PartitionedImportResult.Partition> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        progress.onProgress(rowsDone.get());
+
+        PartitionedImportResult result = new PartitionedImportResult(System.currentTimeMillis() - startTime, results);
+        logger.info("Imported {} rows from {} in {} partition(s) in {} ms ({} rows/sec), {} failed", result.rows, filename,
+                count, result.durationMs, Math.round(result.rowsPerSecond), result.failedPartitions);
+        return result;
+    }
+
+    /**
+     * Load one byte range. Failures are returned in the result, except a
+     * cancelled job, which stops the whole import.
+     */
+    private PartitionedImportResult.Partition importPartition(Path csvPath, String filename, int index, long start, long end,
+            int addToScore, AtomicLong rowsDone, ProgressListener progress) throws Exception {
+        long startTime = System.currentTimeMillis();
+        long[] chunks = {0};
+        long[] committed = {0};
+        long[] unreported = {0};
+        Set<String> chunkClasses = new HashSet<>();
+        ClassStatsDelta chunkStats = new ClassStatsDelta();
+        String error = null;
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (StudentCopyWriter writer = new StudentCopyWriter(conn)) {
+                // Only the first range starts with the header
+                MappedCsvReader.readRange(csvPath, start, end, index == 0, writer, (copy, row) -> {
+                    if (row.size() < 6) {
+                        return;
+                    }
+                    String className = row.dictionary(4);
+                    int value = row.integer(5, Integer.MIN_VALUE);
+                    Integer score = value == Integer.MIN_VALUE ? null : value + addToScore;
+                    String dob = row.epochDay(3, Long.MIN_VALUE) == Long.MIN_VALUE ? null : row.string(3);
+                    copy.addRow(row.string(1), row.string(2), dob, className, score);
+                    chunkClasses.add(className);
+                    chunkStats.add(className, score);
+                    if (++unreported[0] == PROGRESS_INTERVAL) {
+                        progress.onProgress(rowsDone.addAndGet(unreported[0]));
+                        unreported[0] = 0;
+                    }
+                    if (copy.getPendingRows() >= chunkSize) {
+                        committed[0] += commitChunk(conn, copy, chunkStats, chunkClasses, ENDPOINT, filename, null);
+                        chunks[0]++;
+                    }
+                });
+                long last = commitChunk(conn, writer, chunkStats, chunkClasses, ENDPOINT, filename, null);
+                if (last > 0) {
+                    committed[0] += last;
+                    chunks[0]++;
+                }
+                rowsDone.addAndGet(unreported[0]);
+            } catch (CancellationException e) {
+                conn.rollback();
+                throw e;
+            } catch (Exception e) {
+                conn.rollback();
+                logger.error("Partition {} of {} failed after {} committed rows", index, filename, committed[0], e);
+                error = String.valueOf(e.getMessage());
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            // No connection, or it broke while rolling back
+            logger.error("Partition {} of {} failed", index, filename, e);
+            error = String.valueOf(e.getMessage());
+        }
+        return new PartitionedImportResult.Partition(index, start, end, committed[0], chunks[0],
+                System.currentTimeMillis() - startTime, error);
+    }
+
+    /**
+     * Load a workbook from the storage directory straight into the students
+     * table in one pass: rows stream from the first sheet into COPY chunks
+     * with both score adjustments applied (+10 of processing, +5 of upload),
+     * so no intermediate CSV is written or parsed. With {@code writeCsv} the
+     * processed CSV is still produced, by a separate writer thread fed from
+     * the same parse; it is deleted if the import fails.
+     */
+    public ImportResult importFromExcel(String filename, boolean writeCsv, ProgressListener progress) throws Exception {
+        Path excelPath = dataService.resolveStorageFile(filename);
+        Path csvPath = writeCsv ? dataService.processedCsvPath(filename) : null;
+
+        logger.info("Starting direct import of {} (chunk size {}{})", filename, chunkSize,
+                writeCsv ? ", CSV to " + csvPath.getFileName() : "");
+        long startTime = System.currentTimeMillis();
+        long[] chunks = {0};
+        Set<String> chunkClasses = new HashSet<>();
+        ClassStatsDelta chunkStats = new ClassStatsDelta();
+        ExcelCsvPipeline csv = writeCsv
+                ? new ExcelCsvPipeline(dataService.processBatchSize(), dataService.processQueueDepth(), PROCESS_SCORE_OFFSET)
+                : null;
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (InputStream in = Files.newInputStream(excelPath);
+                    Writer csvOut = writeCsv ? dataService.newCsvWriter(csvPath, Compression.NONE) : Writer.nullWriter();
+                    StudentCopyWriter writer = new StudentCopyWriter(conn)) {
+                if (csv != null) {
+                    csv.start(csvOut);
+                }
+                StreamingExcelReader.readExcelRows(in, (rowNum, row) -> {
+                    if (csv != null) {
+                        csv.add(rowNum, row);
+                    }
+                    if (rowNum == 1 || row.size() < 6) {
+                        return;
+                    }
+                    String className = row.getString(4);
+                    Integer score = excelScore(row.get(5));
+                    writer.addRow(row.get(1), row.get(2), excelDob(row.get(3)), className, score);
+                    chunkClasses.add(className);
+                    chunkStats.add(className, score);
+                    long rowsRead = writer.getRowsWritten() + writer.getPendingRows();
+                    if (rowsRead % PROGRESS_INTERVAL == 0) {
+                        progress.onProgress(rowsRead);
+                    }
+                    if (writer.getPendingRows() >= chunkSize) {
+                        commitChunk(conn, writer, chunkStats, chunkClasses, INGEST_ENDPOINT, filename, null);
+                        chunks[0]++;
+                    }
+                });
+                // The CSV is complete before the last chunk commits, so a finished import always has its file
+                if (csv != null) {
+                    csv.finish();
+                }
+                if (commitChunk(conn, writer, chunkStats, chunkClasses, INGEST_ENDPOINT, filename, null) > 0) {
+                    chunks[0]++;
+                }
+                progress.onProgress(writer.getRowsWritten());
+
+                long duration = System.currentTimeMillis() - startTime;
+                ImportResult result = new ImportResult(writer.getRowsWritten(), chunks[0], duration, null, 0,
+                        csvPath != null ? csvPath.getFileName().toString() : null);
+                metrics.time("ingest", INGEST_ENDPOINT, filename, TimeUnit.MILLISECONDS.toNanos(duration));
+                if (csvPath != null) {
+                    metrics.bytesWritten(INGEST_ENDPOINT, csvPath);
+                }
+                logger.info("Imported {} rows from {} in {} ms ({} rows/sec)", result.rows, filename, duration,
+                        Math.round(result.rowsPerSecond));
+                return result;
+            } catch (Exception e) {
+                if (csv != null) {
+                    csv.abort();
+                }
+                conn.rollback();
+                // A name already taken belongs to another run's file
+                if (csvPath != null && !(e instanceof FileAlreadyExistsException)) {
+                    Files.deleteIfExists(csvPath);
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Import a CSV like {@link #importFromStorage(String, int, ProgressListener)},
+     * recording after each chunk, in the chunk's transaction, the byte offset
+     * and record count reached. The file is identified by name, size and
+     * CRC32C checksum. If an earlier import of the same file stopped part way,
+     * this one continues from its last committed chunk under the same run id,
+     * so a failure costs at most one chunk and no row is imported twice. If
+     * the file was imported completely already, nothing is written.
+     *
+     * @throws IllegalStateException if the same file is being imported right now
+     */
+    public ImportResult importCheckpointed(String filename, int addToScore, ProgressListener progress) throws Exception {
+        Path csvPath = uncompressedCsv(filename);
+        long startTime = System.currentTimeMillis();
+        long fileSize = Files.size(csvPath);
+        long checksum = checksum(csvPath);
+
+        try (Connection conn = dataSource.getConnection()) {
+            // One importer per file at a time, or two runs could both start from the same checkpoint
+            if (!advisoryLock(conn, "pg_try_advisory_lock", checksum)) {
+                throw new IllegalStateException("File is already being imported: " + filename);
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                Checkpoint checkpoint = findCheckpoint(conn, filename, fileSize, checksum);
+                if (checkpoint != null && checkpoint.completed) {
+                    logger.info("{} was already imported by run {}, nothing to do", filename, checkpoint.runId);
+                    return new ImportResult(0, 0, System.currentTimeMillis() - startTime, checkpoint.runId, checkpoint.rowsRead);
+                }
+                if (checkpoint == null) {
+                    checkpoint = startCheckpoint(conn, filename, fileSize, checksum);
+                } else {
+                    logger.info("Resuming import {} of {} at record {} (byte {})", checkpoint.runId, filename,
+                            checkpoint.rowsRead, checkpoint.byteOffset);
+                }
+                long resumedAt = checkpoint.rowsRead;
+                long importedBefore = checkpoint.rowsImported;
+                long chunks = 0;
+                Set<String> chunkClasses = new HashSet<>();
+                ClassStatsDelta chunkStats = new ClassStatsDelta();
+
+                try (OffsetCsvReader csv = new OffsetCsvReader(csvPath, checkpoint.byteOffset);
+                        StudentCopyWriter writer = new StudentCopyWriter(conn, checkpoint.runId)) {
+                    if (checkpoint.byteOffset == 0) {
+                        csv.readNext(); // header
+                    }
+                    String[] row;
+                    while ((row = csv.readNext()) != null) {
+                        checkpoint.rowsRead++;
+                        if (row.length >= 6) {
+                            Integer score = parseScore(row[5], addToScore);
+                            writer.addRow(checkpoint.rowsRead, row[1], row[2], parseDob(row[3]), row[4], score);
+                            chunkClasses.add(row[4]);
+                            chunkStats.add(row[4], score);
+                        }
+                        if (checkpoint.rowsRead % PROGRESS_INTERVAL == 0) {
+                            progress.onProgress(checkpoint.rowsRead);
+                        }
+                        if (writer.getPendingRows() >= chunkSize) {
+                            checkpoint.byteOffset = csv.offset();
+                            checkpoint.rowsImported = importedBefore + writer.getRowsWritten() + writer.getPendingRows();
+                            commitChunk(conn, writer, chunkStats, chunkClasses, ENDPOINT, filename, checkpoint);
+                            chunks++;
+                        }
+                    }
+                    checkpoint.byteOffset = csv.offset();
+                    checkpoint.rowsImported = importedBefore + writer.getRowsWritten() + writer.getPendingRows();
+                    checkpoint.completed = true;
+                    if (commitChunk(conn, writer, chunkStats, chunkClasses, ENDPOINT, filename, checkpoint) > 0) {
+                        chunks++;
+                    }
+                    progress.onProgress(checkpoint.rowsRead);
+
+                    long duration = System.currentTimeMillis() - startTime;
+                    ImportResult result = new ImportResult(writer.getRowsWritten(), chunks, duration, checkpoint.runId, resumedAt);
+                    logger.info("Imported {} rows from {} in {} ms as run {} ({} rows/sec)", result.rows, filename, duration,
+                            checkpoint.runId, Math.round(result.rowsPerSecond));
+                    return result;
+                }
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+                try {
+                    advisoryLock(conn, "pg_advisory_unlock", checksum);
+                } catch (SQLException e) {
+                    // A broken connection is discarded by the pool, and its session lock with it
+                    logger.warn("Could not release import lock for {}", filename, e);
+                }
+            }
+        }
+    }
+
+    public List<ImportCheckpoint> checkpoints(String filename) {
+        return checkpoints.findByFilenameOrderByStartedAtDesc(filename);
+    }
+
+    /**
+     * End the COPY of the chunk in flight and commit it together with its
+     * class statistics and, for a checkpointed import, the new checkpoint.
+     * Then evict the classes it wrote from the report cache and schedule a
+     * columnar snapshot reload.
+     *
+     * @param checkpoint position after the chunk, or null
+     * @return rows committed
+     */
+    private long commitChunk(Connection conn, StudentCopyWriter writer, ClassStatsDelta stats, Set<String> classes,
+            String endpoint, String filename, Checkpoint checkpoint) throws Exception {
+        long start = System.nanoTime();
+        long rows = writer.flush();
+        if (checkpoint != null) {
+            saveCheckpoint(conn, checkpoint);
+        }
+        if (rows > 0 || checkpoint != null) {
+            stats.apply(conn);
+            conn.commit();
+        }
+        if (rows > 0) {
+            metrics.time("db-insert", endpoint, filename, System.nanoTime() - start);
+            metrics.rows("imported", endpoint, filename, rows);
+            queryCache.evictClasses(classes);
+            columnStore.invalidate();
+        }
+        stats.clear();
+        classes.clear();
+        return rows;
+    }
+
+    private static Checkpoint findCheckpoint(Connection conn, String filename, long fileSize, long checksum) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT run_id, byte_offset, rows_read, rows_imported, status"
+                + " FROM import_checkpoints WHERE filename = ? AND file_size = ? AND checksum = ? ORDER BY started_at DESC LIMIT 1")) {
+            ps.setString(1, filename);
+            ps.setLong(2, fileSize);
+            ps.setLong(3, checksum);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                Checkpoint checkpoint = new Checkpoint(rs.getString(1));
+                checkpoint.byteOffset = rs.getLong(2);
+                checkpoint.rowsRead = rs.getLong(3);
+                checkpoint.rowsImported = rs.getLong(4);
+                checkpoint.completed = ImportCheckpoint.COMPLETED.equals(rs.getString(5));
+                return checkpoint;
+            }
+        }
+    }
+
+    private static Checkpoint startCheckpoint(Connection conn, String filename, long fileSize, long checksum) throws SQLException {
+        Checkpoint checkpoint = new Checkpoint(UUID.randomUUID().toString());
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO import_checkpoints (run_id, filename, file_size, checksum,"
+                + " byte_offset, rows_read, rows_imported, status, started_at, updated_at) VALUES (?, ?, ?, ?, 0, 0, 0, ?, now(), now())")) {
+            ps.setString(1, checkpoint.runId);
+            ps.setString(2, filename);
+            ps.setLong(3, fileSize);
+            ps.setLong(4, checksum);
+            ps.setString(5, ImportCheckpoint.RUNNING);
+            ps.executeUpdate();
+        }
+        conn.commit();
+        return checkpoint;
+    }
+
+    private static void saveCheckpoint(Connection conn, Checkpoint checkpoint) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE import_checkpoints SET byte_offset = ?, rows_read = ?,"
+                + " rows_imported = ?, status = ?, updated_at = now() WHERE run_id = ?")) {
+            ps.setLong(1, checkpoint.byteOffset);
+            ps.setLong(2, checkpoint.rowsRead);
+            ps.setLong(3, checkpoint.rowsImported);
+            ps.setString(4, checkpoint.completed ? ImportCheckpoint.COMPLETED : ImportCheckpoint.RUNNING);
+            ps.setString(5, checkpoint.runId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Imports that seek to byte offsets need the plain file
+     *
+     * @throws IllegalArgumentException for a gzip or zstd file
+     */
+    private Path uncompressedCsv(String filename) throws IOException {
+        Path csvPath = dataService.resolveStorageFile(filename);
+        Compression compression = Compression.detect(csvPath);
+        if (compression != Compression.NONE) {
+            throw new IllegalArgumentException(filename + " is " + compression.name().toLowerCase(Locale.ROOT)
+                    + "-compressed; import it with mode=copy or mode=jpa");
+        }
+        return csvPath;
+    }
+
+    private static boolean advisoryLock(Connection conn, String function, long key) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT " + function + "(?)")) {
+            ps.setLong(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static long checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Position of a checkpointed import, mirrored in import_checkpoints
+     */
+    private static final class Checkpoint {
+
+        final String runId;
+        long byteOffset;
+        long rowsRead;
+        long rowsImported;
+        boolean completed;
+
+        Checkpoint(String runId) {
+            this.runId = runId;
+        }
+    }
+
+    /**
+     * Returns the date unchanged if it is a valid ISO date, otherwise null,
+     * matching the lenient parsing of the JPA import path.
+     */
+    private static String parseDob(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            LocalDate.parse(value);
+            return value;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Score of a workbook cell after processing and upload, or null where the
+     * two-step path would have stored null: empty or non-numeric cells
+     */
+    private static Integer excelScore(CharSequence value) {
+        if (value.length() == 0) {
+            return null;
+        }
+        try {
+            return DataProcessingService.parseScore(value) + PROCESS_SCORE_OFFSET + UPLOAD_SCORE_OFFSET;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static CharSequence excelDob(CharSequence value) {
+        if (value.length() == 0) {
+            return null;
+        }
+        try {
+            LocalDate.parse(value);
+            return value;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseScore(String value, int addToScore) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value) + addToScore;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
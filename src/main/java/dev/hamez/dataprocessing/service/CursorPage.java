@@ -0,0 +1,43 @@
+package dev.hamez.dataprocessing.service;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the
+ * last page; {@code total} is null unless a count was requested, and only
+ * approximate when {@code totalEstimated} is set.
+ */
+public class CursorPage<T> {
+
+    /**
+     * How the total of a cursor listing is obtained
+     */
+    public enum CountMode {
+        /**
+         * No total; the cheapest option for deep paging
+         */
+        NONE,
+        /**
+         * Exact count(*), a scan of all matching rows
+         */
+        EXACT,
+        /**
+         * Planner estimate from table statistics, constant time
+         */
+        ESTIMATE
+    }
+
+    public final List<T> content;
+    public final int size;
+    public final String nextCursor;
+    public final Long total;
+    public final boolean totalEstimated;
+
+    public CursorPage(List<T> content, String nextCursor, Long total, boolean totalEstimated) {
+        this.content = content;
+        this.size = content.size();
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.totalEstimated = totalEstimated;
+    }
+}
@@ -1,24 +1,43 @@
 package dev.hamez.dataprocessing.service;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.util.IOUtils;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,10 +47,13 @@ import org.springframework.web.multipart.MultipartFile;
 import com.opencsv.CSVWriter;
 
 import dev.hamez.dataprocessing.entity.Student;
-import static dev.hamez.dataprocessing.util.RandomDataGenerator.randomAlphaString;
-import static dev.hamez.dataprocessing.util.RandomDataGenerator.randomDateBetween;
-import static dev.hamez.dataprocessing.util.RandomDataGenerator.randomInt;
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.util.Compression;
+import dev.hamez.dataprocessing.util.MappedCsvReader;
+import dev.hamez.dataprocessing.util.ProgressListener;
+import dev.hamez.dataprocessing.util.RandomDataGenerator;
 import dev.hamez.dataprocessing.util.StreamingExcelReader;
+import dev.hamez.dataprocessing.util.XlsxPackageWriter;
 import jakarta.annotation.PostConstruct;
 
 @Service
@@ -42,7 +64,66 @@ public class DataProcessingService {
     @Value("${app.file.storage:/var/log/applications/API/dataprocessing}")
     private String storagePath;
 
-    private final DateTimeFormatter tsFormatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private final PipelineMetrics metrics;
+    private final OutputCompressor compressor;
+    // JDK RandomGenerator algorithm used for synthetic data
+    private final RandomGeneratorFactory<RandomGenerator> randomFactory;
+    // Deflate level for generated XLSX files, 0-9 or -1 for the zlib default
+    private final int xlsxCompressionLevel;
+    // Rows per batch and batches in flight for pipelined processing
+    private final int processBatchSize;
+    private final int processQueueDepth;
+    // CSV parsing for JPA imports from storage: "mapped" (parallel) or "opencsv"
+    private final String csvReader;
+    private final int csvParallelism;
+
+    private final DateTimeFormatter tsFormatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    // Tells apart output names stamped in the same millisecond
+    private static final AtomicLong OUTPUT_SEQUENCE = new AtomicLong();
+
+    // Rows between progress reports to job listeners
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    // Rows rendered per task when generating in parallel
+    private static final int GENERATION_SHARD_SIZE = 10000;
+
+    /**
+     * Most records one generated workbook holds: a single sheet, less the header row
+     */
+    public static final int MAX_GENERATED_RECORDS = XlsxPackageWriter.MAX_ROWS_PER_SHEET - 1;
+
+    private static final String GENERATE_ENDPOINT = "/api/data/generate";
+    private static final String PROCESS_ENDPOINT = "/api/data/process";
+
+    // Plain and compressed CSVs
+    private static final Pattern CSV_NAME = Pattern.compile("(?i).+\\.csv(\\.gz|\\.zst)?");
+
+    private static final String[] HEADERS = {"studentId", "firstName", "lastName", "dob", "className", "score"};
+    private static final String[] CLASS_NAMES = {"Class1", "Class2", "Class3", "Class4", "Class5"};
+    private static final LocalDate DOB_START = LocalDate.of(2000, 1, 1);
+    private static final LocalDate DOB_END = LocalDate.of(2010, 12, 31);
+
+    /**
+     * @throws IllegalArgumentException if the random algorithm can neither
+     * split nor jump, which parallel generation needs
+     */
+    public DataProcessingService(PipelineMetrics metrics, OutputCompressor compressor,
+            @Value("${app.generate.random-algorithm:SplittableRandom}") String randomAlgorithm,
+            @Value("${app.xlsx.compression-level:-1}") int xlsxCompressionLevel,
+            @Value("${app.process.batch-size:1000}") int processBatchSize,
+            @Value("${app.process.queue-depth:8}") int processQueueDepth,
+            @Value("${app.import.csv-reader:mapped}") String csvReader,
+            @Value("${app.import.csv-parallelism:4}") int csvParallelism) {
+        this.metrics = metrics;
+        this.compressor = compressor;
+        this.randomFactory = RandomDataGenerator.factory(randomAlgorithm);
+        this.xlsxCompressionLevel = xlsxCompressionLevel;
+        this.processBatchSize = processBatchSize;
+        this.processQueueDepth = processQueueDepth;
+        this.csvReader = csvReader;
+        this.csvParallelism = csvParallelism;
+    }
 
     @PostConstruct
     public void init() throws IOException {
@@ -59,69 +140,181 @@ public class DataProcessingService {
     }
 
     public String generateExcel(int numberOfRecords) throws IOException {
-        String timestamp = java.time.LocalDateTime.now().format(tsFormatter);
-        String filename = String.format("students_%s.xlsx", timestamp);
+        return generateExcel(numberOfRecords, ProgressListener.NONE);
+    }
+
+    public String generateExcel(int numberOfRecords, ProgressListener progress) throws IOException {
+        return generateExcel(numberOfRecords, 1, null, progress);
+    }
+
+    /**
+     * Generate an Excel file of random students, streamed straight into the
+     * target file by {@link XlsxPackageWriter}. Rows are rendered in shards;
+     * with {@code parallelism > 1} shards are rendered concurrently and
+     * stitched into the sheet in order, so studentIds stay sequential from 1.
+     *
+     * @param seed seed for reproducible data, or null for a random run. A
+     * given seed yields the same rows whatever the parallelism.
+     * @throws IllegalArgumentException if numberOfRecords is negative or above
+     * {@link #MAX_GENERATED_RECORDS}
+     */
+    public String generateExcel(int numberOfRecords, int parallelism, Long seed, ProgressListener progress) throws IOException {
+        if (numberOfRecords < 0 || numberOfRecords > MAX_GENERATED_RECORDS) {
+            throw new IllegalArgumentException("numberOfRecords must be between 0 and " + MAX_GENERATED_RECORDS);
+        }
+        String filename = String.format("students_%s.xlsx", newOutputStamp());
         Path out = Paths.get(determineStoragePath(), filename);
+        RandomDataGenerator random = RandomDataGenerator.of(randomFactory, seed);
 
-        // Use SXSSFWorkbook for streaming - keeps only 100 rows in memory
-        try (SXSSFWorkbook wb = new SXSSFWorkbook(100)) {
-            var sheet = wb.createSheet("students");
-            int r = 0;
-            var header = sheet.createRow(r++);
-            header.createCell(0).setCellValue("studentId");
-            header.createCell(1).setCellValue("firstName");
-            header.createCell(2).setCellValue("lastName");
-            header.createCell(3).setCellValue("dob");
-            header.createCell(4).setCellValue("className");
-            header.createCell(5).setCellValue("score");
-
-            LocalDate start = LocalDate.of(2000, 1, 1);
-            LocalDate end = LocalDate.of(2010, 12, 31);
-            String[] classes = {"Class1", "Class2", "Class3", "Class4", "Class5"};
-
-            logger.info("Starting to generate {} records...", numberOfRecords);
-            long startTime = System.currentTimeMillis();
-
-            for (int i = 1; i <= numberOfRecords; i++) {
-                var row = sheet.createRow(r++);
-                int c = 0;
-                row.createCell(c++).setCellValue(i);
-                row.createCell(c++).setCellValue(randomAlphaString(3, 8));
-                row.createCell(c++).setCellValue(randomAlphaString(3, 8));
-                row.createCell(c++).setCellValue(randomDateBetween(start, end).toString());
-                row.createCell(c++).setCellValue(classes[randomInt(0, classes.length - 1)]);
-                row.createCell(c++).setCellValue(randomInt(55, 75));
+        int threads = Math.max(1, Math.min(parallelism, Runtime.getRuntime().availableProcessors()));
+        logger.info("Starting to generate {} records on {} thread(s)...", numberOfRecords, threads);
+        long startTime = System.currentTimeMillis();
 
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = threads > 1
+                ? Executors.newFixedThreadPool(threads, task -> new Thread(task, "generate-" + threadCount.incrementAndGet()))
+                : null;
+        // Keep a bounded window of rendered shards so memory does not grow with the record count
+        Deque<RenderedShard> inFlight = new ArrayDeque<>();
+        int nextId = 1;
+        long written = 0;
+        try (XlsxPackageWriter xlsx = new XlsxPackageWriter(
+                new BufferedOutputStream(createOutput(out), 64 * 1024), xlsxCompressionLevel)) {
+            xlsx.setSharedStrings(List.of(CLASS_NAMES));
+            xlsx.startSheet("students");
+            StringBuilder header = new StringBuilder(256);
+            XlsxPackageWriter.appendRowStart(header, 1);
+            for (int c = 0; c < HEADERS.length; c++) {
+                XlsxPackageWriter.appendStringCell(header, c, 1, HEADERS[c]);
+            }
+            XlsxPackageWriter.appendRowEnd(header);
+            byte[] headerBytes = header.toString().getBytes(StandardCharsets.UTF_8);
+            xlsx.writeRows(headerBytes, 0, headerBytes.length, 1);
+
+            while (written < numberOfRecords) {
+                while (inFlight.size() < threads * 2 && nextId <= numberOfRecords) {
+                    int from = nextId;
+                    int to = Math.min(numberOfRecords, from + GENERATION_SHARD_SIZE - 1);
+                    // Split on this thread, in shard order, so a seeded run is reproducible
+                    RandomDataGenerator shardRandom = random.split();
+                    Future<byte[]> rows = pool != null
+                            ? pool.submit(() -> renderStudentRows(from, to, shardRandom))
+                            : CompletableFuture.completedFuture(renderStudentRows(from, to, shardRandom));
+                    inFlight.add(new RenderedShard(to - from + 1, rows));
+                    nextId = to + 1;
+                }
+                RenderedShard shard = inFlight.poll();
+                byte[] rows = awaitShard(shard.rows());
+                xlsx.writeRows(rows, 0, rows.length, shard.rowCount());
+
+                long before = written;
+                written += shard.rowCount();
+                progress.onProgress(written);
                 // Log progress every 100k records
-                if (i % 100000 == 0) {
-                    logger.info("Generated {} records...", i);
+                if (written / 100000 > before / 100000) {
+                    logger.info("Generated {} records...", written);
                 }
             }
+        } catch (FileAlreadyExistsException e) {
+            // Another run's file, not ours to delete
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(out);
+            throw e;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
 
-            long generationTime = System.currentTimeMillis() - startTime;
-            logger.info("Record generation completed in {} ms", generationTime);
+        long totalTime = System.currentTimeMillis() - startTime;
+        metrics.rows("generated", GENERATE_ENDPOINT, filename, written);
+        metrics.time("generate", GENERATE_ENDPOINT, filename, TimeUnit.MILLISECONDS.toNanos(totalTime));
+        metrics.bytesWritten(GENERATE_ENDPOINT, out);
+        logger.info("Generated Excel with {} records on {} thread(s) in {} ms: {}", numberOfRecords, threads, totalTime, out.toAbsolutePath());
+        return out.toString();
+    }
 
-            try (OutputStream fos = Files.newOutputStream(out)) {
-                wb.write(fos);
-            }
+    /**
+     * Render students {@code from..to} (inclusive) as sheet rows. Row numbers
+     * are offset by one for the header row. Values are drawn in bulk into
+     * per-shard arrays so the row loop allocates nothing.
+     */
+    private static byte[] renderStudentRows(int from, int to, RandomDataGenerator random) {
+        int count = to - from + 1;
+        int[] epochDays = new int[count];
+        int[] classIndexes = new int[count];
+        int[] scores = new int[count];
+        random.fillEpochDays(epochDays, 0, count, DOB_START, DOB_END);
+        random.fillInts(classIndexes, 0, count, 0, CLASS_NAMES.length - 1);
+        random.fillInts(scores, 0, count, 55, 75);
+        char[] name = new char[8];
+
+        StringBuilder sb = new StringBuilder(count * 320);
+        for (int i = 0; i < count; i++) {
+            int id = from + i;
+            long rowNum = id + 1L;
+            XlsxPackageWriter.appendRowStart(sb, rowNum);
+            XlsxPackageWriter.appendNumberCell(sb, 0, rowNum, id);
+            // Names are plain letters and dates digits, so they need no escaping
+            XlsxPackageWriter.appendStringCellStart(sb, 1, rowNum);
+            sb.append(name, 0, random.nextAlpha(name, 0, 3, 8));
+            XlsxPackageWriter.appendStringCellEnd(sb);
+            XlsxPackageWriter.appendStringCellStart(sb, 2, rowNum);
+            sb.append(name, 0, random.nextAlpha(name, 0, 3, 8));
+            XlsxPackageWriter.appendStringCellEnd(sb);
+            XlsxPackageWriter.appendStringCellStart(sb, 3, rowNum);
+            appendIsoDate(sb, epochDays[i]);
+            XlsxPackageWriter.appendStringCellEnd(sb);
+            // Class names are entries of the shared strings table
+            XlsxPackageWriter.appendSharedStringCell(sb, 4, rowNum, classIndexes[i]);
+            XlsxPackageWriter.appendNumberCell(sb, 5, rowNum, scores[i]);
+            XlsxPackageWriter.appendRowEnd(sb);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
 
-            // Clean up temporary files created by SXSSFWorkbook
-            wb.dispose();
+    /**
+     * Append an epoch day as yyyy-MM-dd, the same text as LocalDate.toString
+     * for four-digit years
+     */
+    private static void appendIsoDate(StringBuilder sb, int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        sb.append(date.getYear()).append('-');
+        if (month < 10) {
+            sb.append('0');
+        }
+        sb.append(month).append('-');
+        if (day < 10) {
+            sb.append('0');
+        }
+        sb.append(day);
+    }
 
-            long totalTime = System.currentTimeMillis() - startTime;
-            logger.info("Generated Excel with {} records in {} ms: {}", numberOfRecords, totalTime, out.toAbsolutePath());
+    private static byte[] awaitShard(Future<byte[]> shard) throws IOException {
+        try {
+            return shard.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating rows");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to generate rows", e.getCause());
         }
-        return out.toString();
+    }
+
+    private record RenderedShard(int rowCount, Future<byte[]> rows) {
+
     }
 
     public String processExcel(MultipartFile file) throws Exception {
         // Read Excel, add 10 to score, write CSV
         String baseName = FilenameUtils.getBaseName(file.getOriginalFilename());
-        String timestamp = java.time.LocalDateTime.now().format(tsFormatter);
-        String outName = String.format("%s/" + baseName + "_processed_%s.csv", determineStoragePath(), timestamp);
+        String outName = String.format("%s/" + baseName + "_processed_%s.csv", determineStoragePath(), newOutputStamp());
         Path outPath = Paths.get(outName);
 
-        try (InputStream is = file.getInputStream(); Workbook wb = WorkbookFactory.create(is); Writer writer = Files.newBufferedWriter(outPath); CSVWriter csv = new CSVWriter(writer)) {
+        try (InputStream is = file.getInputStream(); Workbook wb = WorkbookFactory.create(is); Writer writer = newCsvWriter(outPath, Compression.NONE); CSVWriter csv = new CSVWriter(writer)) {
             var sheet = wb.getSheetAt(0);
             boolean headerWritten = false;
             for (var row : sheet) {
@@ -211,6 +404,24 @@ public class DataProcessingService {
         return storagePath;
     }
 
+    /**
+     * Resolve a file in the storage directory, failing if it does not exist
+     */
+    public Path resolveStorageFile(String filename) throws IOException {
+        Path path = Paths.get(determineStoragePath(), filename);
+        if (!Files.exists(path)) {
+            throw new IOException("File not found: " + filename);
+        }
+        return path;
+    }
+
+    /**
+     * Path for a new file in the storage directory
+     */
+    public Path resolveOutputFile(String filename) {
+        return Paths.get(determineStoragePath(), filename);
+    }
+
     /**
      * List all Excel files in the storage directory
      */
@@ -237,7 +448,7 @@ public class DataProcessingService {
             return List.of();
         }
         return Files.list(dir)
-                .filter(p -> p.toString().toLowerCase().endsWith(".csv"))
+                .filter(p -> CSV_NAME.matcher(p.getFileName().toString()).matches())
                 .map(p -> p.getFileName().toString())
                 .sorted()
                 .toList();
@@ -248,67 +459,236 @@ public class DataProcessingService {
      * memory efficiency
      */
     public String processExcelFromStorage(String filename) throws Exception {
-        Path excelPath = Paths.get(determineStoragePath(), filename);
-        if (!Files.exists(excelPath)) {
-            throw new IOException("File not found: " + filename);
-        }
+        return processExcelFromStorage(filename, ProgressListener.NONE);
+    }
 
-        String baseName = FilenameUtils.getBaseName(filename);
-        String timestamp = java.time.LocalDateTime.now().format(tsFormatter);
-        String outName = String.format("%s_processed_%s.csv", baseName, timestamp);
-        Path outPath = Paths.get(determineStoragePath(), outName);
+    public String processExcelFromStorage(String filename, ProgressListener progress) throws Exception {
+        return processExcelFromStorage(filename, Compression.NONE, progress);
+    }
+
+    /**
+     * Same, writing the CSV gzip- or zstd-compressed on the compression pool
+     * when asked to; the file name then ends in {@code .csv.gz} or
+     * {@code .csv.zst}
+     */
+    public String processExcelFromStorage(String filename, Compression compression, ProgressListener progress) throws Exception {
+        Path excelPath = resolveStorageFile(filename);
+        Path outPath = processedCsvPath(filename, compression);
+        String outName = outPath.getFileName().toString();
 
         logger.info("Starting streaming Excel processing: {} -> {}", filename, outName);
         long startTime = System.currentTimeMillis();
-
-        try (InputStream is = Files.newInputStream(excelPath); Writer writer = Files.newBufferedWriter(outPath); CSVWriter csv = new CSVWriter(writer)) {
-
-            // Use streaming reader to process Excel row by row
-            StreamingExcelReader.readExcelStreaming(is, (rowNum, cells) -> {
-                if (rowNum == 1) {
-                    // Write header row as-is
-                    csv.writeNext(cells.toArray(String[]::new));
-                } else {
-                    // Process data rows: add 10 to score (last column)
-                    if (!cells.isEmpty()) {
+        long[] lastRow = {0};
+
+        try (InputStream is = Files.newInputStream(excelPath); Writer writer = newCsvWriter(outPath, compression);
+                CSVWriter csv = new CSVWriter(writer)) {
+
+            // Use streaming reader to process Excel row by row; the output
+            // array is reused while the row width stays the same
+            String[][] out = {new String[0]};
+            StreamingExcelReader.readExcelRows(is, (rowNum, row) -> {
+                int size = row.size();
+                if (out[0].length != size) {
+                    out[0] = new String[size];
+                }
+                String[] fields = out[0];
+                for (int i = 0; i < size; i++) {
+                    fields[i] = row.getString(i);
+                }
+                // Process data rows: add 10 to score (last column); header is written as-is
+                if (rowNum != 1 && size > 0) {
+                    CharSequence score = row.get(size - 1);
+                    if (score.length() > 0) {
                         try {
-                            int lastIdx = cells.size() - 1;
-                            String scoreStr = cells.get(lastIdx);
-                            if (scoreStr != null && !scoreStr.isEmpty()) {
-                                int score = (int) Double.parseDouble(scoreStr); // Handle potential decimal values
-                                cells.set(lastIdx, String.valueOf(score + 10));
-                            }
+                            fields[size - 1] = String.valueOf(parseScore(score) + 10);
                         } catch (NumberFormatException ex) {
                             // Leave value as-is if not a number
-                            logger.debug("Non-numeric score at row {}: {}", rowNum, cells.get(cells.size() - 1));
+                            logger.debug("Non-numeric score at row {}: {}", rowNum, score);
                         }
                     }
-                    csv.writeNext(cells.toArray(String[]::new));
                 }
+                csv.writeNext(fields);
+                lastRow[0] = rowNum;
 
+                if (rowNum % PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(rowNum - 1);
+                }
                 // Log progress every 100k rows
                 if (rowNum % 100000 == 0) {
                     logger.info("Processed {} rows to CSV...", rowNum);
                 }
             });
+        } catch (FileAlreadyExistsException e) {
+            // Another run's file, not ours to delete
+            throw e;
+        } catch (Exception e) {
+            // Do not leave a truncated CSV behind for a failed or cancelled run
+            Files.deleteIfExists(outPath);
+            throw e;
         }
 
         long duration = System.currentTimeMillis() - startTime;
+        // Parsing and writing interleave on one thread, so they are timed together
+        long dataRows = Math.max(0, lastRow[0] - 1);
+        metrics.rows("parsed", PROCESS_ENDPOINT, filename, dataRows);
+        metrics.rows("written", PROCESS_ENDPOINT, outName, dataRows);
+        metrics.time("process", PROCESS_ENDPOINT, filename, TimeUnit.MILLISECONDS.toNanos(duration));
+        metrics.bytesWritten(PROCESS_ENDPOINT, outPath);
         logger.info("Completed streaming Excel processing in {} ms: {}", duration, outPath.toAbsolutePath());
         return outPath.getFileName().toString();
     }
 
+    /**
+     * Same conversion as {@link #processExcelFromStorage(String)}, but parsing
+     * and CSV writing run on separate threads connected by a bounded queue of
+     * row batches
+     *
+     * @return the CSV file name with per-stage timings
+     */
+    public ProcessResult processExcelPipelined(String filename, ProgressListener progress) throws Exception {
+        return processExcelPipelined(filename, Compression.NONE, progress);
+    }
+
+    public ProcessResult processExcelPipelined(String filename, Compression compression, ProgressListener progress)
+            throws Exception {
+        Path excelPath = resolveStorageFile(filename);
+        Path outPath = processedCsvPath(filename, compression);
+
+        logger.info("Starting pipelined Excel processing: {} -> {}", filename, outPath.getFileName());
+        ExcelCsvPipeline pipeline = new ExcelCsvPipeline(processBatchSize, processQueueDepth, 10);
+        ProcessResult result;
+        try (InputStream is = Files.newInputStream(excelPath); Writer writer = newCsvWriter(outPath, compression)) {
+            result = pipeline.run(is, writer, outPath.getFileName().toString(), progress);
+        } catch (FileAlreadyExistsException e) {
+            // Another run's file, not ours to delete
+            throw e;
+        } catch (Exception e) {
+            // Do not leave a truncated CSV behind for a failed or cancelled run
+            Files.deleteIfExists(outPath);
+            throw e;
+        }
+        metrics.rows("parsed", PROCESS_ENDPOINT, filename, result.rows);
+        metrics.rows("written", PROCESS_ENDPOINT, result.file, result.rows);
+        metrics.time("parse", PROCESS_ENDPOINT, filename, TimeUnit.MILLISECONDS.toNanos(result.parseMs));
+        metrics.time("csv-write", PROCESS_ENDPOINT, result.file, TimeUnit.MILLISECONDS.toNanos(result.writeMs));
+        metrics.bytesWritten(PROCESS_ENDPOINT, outPath);
+        return result;
+    }
+
+    int processBatchSize() {
+        return processBatchSize;
+    }
+
+    int processQueueDepth() {
+        return processQueueDepth;
+    }
+
+    /**
+     * Stamp for the name of a new output file: the time to the millisecond and
+     * a sequence number, so runs started together never share a name
+     */
+    public String newOutputStamp() {
+        return java.time.LocalDateTime.now().format(tsFormatter) + "-" + OUTPUT_SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * Open a new output file, failing rather than truncating a file that
+     * already exists
+     */
+    public static OutputStream createOutput(Path path) throws IOException {
+        return Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Uniquely stamped path of the processed CSV for a workbook
+     */
+    Path processedCsvPath(String filename) {
+        return processedCsvPath(filename, Compression.NONE);
+    }
+
+    Path processedCsvPath(String filename, Compression compression) {
+        String baseName = FilenameUtils.getBaseName(filename);
+        String outName = String.format("%s_processed_%s.csv%s", baseName, newOutputStamp(), compression.suffix);
+        return Paths.get(determineStoragePath(), outName);
+    }
+
+    /**
+     * UTF-8 writer to a new CSV file, compressed as asked
+     */
+    Writer newCsvWriter(Path outPath, Compression compression) throws IOException {
+        OutputStream out = createOutput(outPath);
+        if (compression != Compression.NONE) {
+            out = compressor.compress(out, compression);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Integer value of a score cell; plain integers are parsed without
+     * allocating, anything else (e.g. "65.0") goes through Double
+     */
+    static int parseScore(CharSequence value) {
+        int len = value.length();
+        int i = value.charAt(0) == '-' ? 1 : 0;
+        if (len - i > 0 && len - i <= 9) {
+            int result = 0;
+            for (; i < len; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                result = result * 10 + (c - '0');
+            }
+            if (i == len) {
+                return value.charAt(0) == '-' ? -result : result;
+            }
+        }
+        return (int) Double.parseDouble(value.toString()); // Handle potential decimal values
+    }
+
     /**
      * Read CSV from storage directory and apply score offset
      */
     public List<Student> readCsvFromStorageAndApplyOffset(String filename, int addToScore) throws Exception {
-        Path csvPath = Paths.get(determineStoragePath(), filename);
-        if (!Files.exists(csvPath)) {
-            throw new IOException("File not found: " + filename);
-        }
+        Path csvPath = resolveStorageFile(filename);
+
+        // Compressed files can only be read as a stream
+        List<Student> result = "opencsv".equalsIgnoreCase(csvReader) || Compression.detect(csvPath) != Compression.NONE
+                ? readStudentsOpenCsv(csvPath, addToScore)
+                : readStudentsMapped(csvPath, addToScore);
+        logger.info("Read {} students from CSV: {}", result.size(), csvPath.toAbsolutePath());
+        return result;
+    }
 
+    /**
+     * Parse the file in parallel chunks of the memory-mapped file. Score and
+     * date of birth are read straight from the bytes; rows keep file order so
+     * generated ids follow the file.
+     */
+    private List<Student> readStudentsMapped(Path csvPath, int addToScore) throws Exception {
+        List<List<Student>> chunks = MappedCsvReader.read(csvPath, csvParallelism, true, true, ArrayList::new,
+                (List<Student> chunk, MappedCsvReader.Record row) -> {
+                    if (row.size() < 6) {
+                        return;
+                    }
+                    Student s = new Student();
+                    s.setFirstName(row.string(1));
+                    s.setLastName(row.string(2));
+                    long dob = row.epochDay(3, Long.MIN_VALUE);
+                    s.setDob(dob == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(dob));
+                    s.setClassName(row.dictionary(4));
+                    int score = row.integer(5, Integer.MIN_VALUE);
+                    s.setScore(score == Integer.MIN_VALUE ? null : score + addToScore);
+                    chunk.add(s);
+                });
+        List<Student> result = new ArrayList<>(chunks.stream().mapToInt(List::size).sum());
+        chunks.forEach(result::addAll);
+        return result;
+    }
+
+    private List<Student> readStudentsOpenCsv(Path csvPath, int addToScore) throws Exception {
         List<Student> result = new ArrayList<>();
-        try (var reader = Files.newBufferedReader(csvPath); var csv = new com.opencsv.CSVReader(reader)) {
+        try (var reader = Compression.newReader(csvPath); var csv = new com.opencsv.CSVReader(reader)) {
             String[] row;
             boolean first = true;
             while ((row = csv.readNext()) != null) {
@@ -336,7 +716,6 @@ public class DataProcessingService {
                 result.add(s);
             }
         }
-        logger.info("Read {} students from CSV: {}", result.size(), csvPath.toAbsolutePath());
         return result;
     }
 }
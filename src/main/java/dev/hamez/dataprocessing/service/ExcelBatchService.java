@@ -0,0 +1,316 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.util.Compression;
+import dev.hamez.dataprocessing.util.ProgressListener;
+import dev.hamez.dataprocessing.util.StreamingExcelReader;
+
+/**
+ * Converts many sheets and/or many workbooks to CSV at once. Every sheet to
+ * read becomes one task on a fixed-size pool, whether the sheets come from one
+ * workbook or from dozens of files, so the pool size alone bounds the work in
+ * flight. Each task opens its own read-only view of the workbook.
+ */
+@Service
+public class ExcelBatchService {
+
+    /**
+     * Which sheets of each workbook to convert
+     */
+    public enum SheetMode {
+        /**
+         * Only the first sheet, as {@code /process} always did
+         */
+        FIRST,
+        /**
+         * Every sheet into its own CSV
+         */
+        EACH,
+        /**
+         * Every sheet into one CSV, keeping the first sheet's header only
+         */
+        MERGED;
+
+        public static SheetMode parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ExcelBatchService.class);
+
+    private static final int SCORE_OFFSET = 10;
+    private static final int BATCH_ROWS = 1000;
+
+    private static final String ENDPOINT = "/api/data/process/batch";
+
+    private final DataProcessingService dataService;
+    private final PipelineMetrics metrics;
+
+    public ExcelBatchService(DataProcessingService dataService, PipelineMetrics metrics) {
+        this.dataService = dataService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Excel files in the storage directory whose name matches a glob such as
+     * {@code students_2025*.xlsx}
+     */
+    public List<String> matchFiles(String glob) throws IOException {
+        if (glob.contains("/") || glob.contains("\\")) {
+            throw new IllegalArgumentException("Glob must match file names in the storage directory: " + glob);
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return dataService.listExcelFiles().stream()
+                .filter(name -> matcher.matches(Path.of(name)))
+                .toList();
+    }
+
+    /**
+     * Convert the given workbooks from the storage directory to CSV, adding 10
+     * to each score like {@code /process}. A file that cannot be read is
+     * reported in the result and does not stop the others. A file listed
+     * twice is converted once.
+     *
+     * @param parallelism worker threads, capped at the CPU count and at the
+     * number of sheets
+     */
+    public BatchProcessResult processFiles(List<String> filenames, SheetMode mode, int parallelism, ProgressListener progress)
+            throws Exception {
+        long startTime = System.currentTimeMillis();
+        Map<String, String> errors = new LinkedHashMap<>();
+
+        // Plan: one task per sheet to convert
+        List<FileWork> files = new ArrayList<>();
+        List<SheetTask> tasks = new ArrayList<>();
+        long bytesRead = 0;
+        for (String filename : new LinkedHashSet<>(filenames)) {
+            try {
+                FileWork file = planFile(filename, mode, tasks);
+                files.add(file);
+                bytesRead += file.size;
+            } catch (Exception e) {
+                logger.warn("Skipping {}: {}", filename, e.getMessage());
+                errors.put(filename, e.getMessage());
+            }
+        }
+
+        int threads = Math.max(1, Math.min(Math.min(parallelism, Runtime.getRuntime().availableProcessors()), tasks.size()));
+        logger.info("Processing {} sheet(s) from {} file(s) on {} thread(s)", tasks.size(), files.size(), threads);
+
+        AtomicLong rowsDone = new AtomicLong();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> new Thread(r, "process-" + threadCount.incrementAndGet()));
+        List<Future<Long>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (SheetTask task : tasks) {
+                futures.add(pool.submit(() -> convertSheet(task, rowsDone, progress)));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                FileWork file = tasks.get(i).file;
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    // A cancelled job surfaces from the worker's progress call, possibly wrapped by the parser
+                    for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+                        if (t instanceof CancellationException cancelled) {
+                            throw cancelled;
+                        }
+                    }
+                    logger.error("Failed to process sheet {} of {}", tasks.get(i).sheetName, file.name, e.getCause());
+                    file.error = String.valueOf(e.getCause().getMessage());
+                }
+            }
+            for (FileWork file : files) {
+                if (file.error == null && mode == SheetMode.MERGED) {
+                    concatenate(file.parts, file.outputs.get(0), file.created);
+                }
+            }
+        } catch (Exception e) {
+            // Cancelled or interrupted: stop every worker and leave nothing half-written
+            pool.shutdownNow();
+            for (FileWork file : files) {
+                deleteQuietly(file.created);
+            }
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<String> outputs = new ArrayList<>();
+        for (FileWork file : files) {
+            if (file.error != null) {
+                errors.put(file.name, file.error);
+                deleteQuietly(file.created);
+            } else {
+                deleteQuietly(file.parts);
+                for (Path output : file.outputs) {
+                    outputs.add(output.getFileName().toString());
+                    metrics.bytesWritten(ENDPOINT, output);
+                }
+            }
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        BatchProcessResult result = new BatchProcessResult(files.size(), tasks.size(), threads, rowsDone.get(), bytesRead,
+                duration, outputs, errors);
+        logger.info("Processed {} rows from {} sheet(s) in {} ms ({} rows/s, {} MB/s), {} failed file(s)",
+                result.rows, result.sheets, duration, Math.round(result.rowsPerSecond),
+                String.format(Locale.ROOT, "%.1f", result.megabytesPerSecond), errors.size());
+        return result;
+    }
+
+    /**
+     * Outputs are stamped per file, so workbooks sharing a base name (a.xls,
+     * a.xlsx) get different names, and per-sheet names carry the sheet number,
+     * since sheet names may differ only in characters safeName replaces
+     */
+    private FileWork planFile(String filename, SheetMode mode, List<SheetTask> tasks) throws Exception {
+        Path input = dataService.resolveStorageFile(filename);
+        FileWork file = new FileWork(filename, input, Files.size(input));
+        String baseName = FilenameUtils.getBaseName(filename);
+        String timestamp = dataService.newOutputStamp();
+        List<String> sheetNames = mode == SheetMode.FIRST
+                ? List.of("") : StreamingExcelReader.sheetNames(file.input);
+
+        if (mode == SheetMode.EACH) {
+            for (int i = 0; i < sheetNames.size(); i++) {
+                String name = String.format("%s_%s_%d_processed_%s.csv", baseName, safeName(sheetNames.get(i)), i + 1, timestamp);
+                Path out = dataService.resolveOutputFile(name);
+                file.outputs.add(out);
+                tasks.add(new SheetTask(file, i, sheetNames.get(i), out, false));
+            }
+            return file;
+        }
+
+        file.outputs.add(dataService.resolveOutputFile(String.format("%s_processed_%s.csv", baseName, timestamp)));
+        if (mode == SheetMode.FIRST) {
+            tasks.add(new SheetTask(file, 0, "", file.outputs.get(0), false));
+            return file;
+        }
+        // Merged: each sheet goes to a part file, concatenated in sheet order at the end
+        for (int i = 0; i < sheetNames.size(); i++) {
+            Path part = dataService.resolveOutputFile(String.format("%s_processed_%s.csv.part%d", baseName, timestamp, i));
+            file.parts.add(part);
+            tasks.add(new SheetTask(file, i, sheetNames.get(i), part, i > 0));
+        }
+        return file;
+    }
+
+    private long convertSheet(SheetTask task, AtomicLong rowsDone, ProgressListener progress) throws Exception {
+        long start = System.nanoTime();
+        RowBatch batch = new RowBatch(BATCH_ROWS);
+        long[] rows = {0};
+        try (Writer writer = create(task.file, task.output)) {
+            CsvBatchWriter csv = new CsvBatchWriter(writer, SCORE_OFFSET);
+            StreamingExcelReader.readSheetRows(task.file.input, task.sheetIndex, (rowNum, row) -> {
+                if (task.skipHeader && rowNum == 1) {
+                    return;
+                }
+                batch.add(rowNum, row);
+                if (batch.isFull()) {
+                    csv.write(batch);
+                    rows[0] += batch.size;
+                    progress.onProgress(rowsDone.addAndGet(batch.size));
+                    batch.clear();
+                }
+            });
+            csv.write(batch);
+            rows[0] += batch.size;
+            progress.onProgress(rowsDone.addAndGet(batch.size));
+        }
+        metrics.rows("parsed", ENDPOINT, task.file.name, rows[0]);
+        metrics.rows("written", ENDPOINT, task.output.getFileName().toString(), rows[0]);
+        metrics.time("process", ENDPOINT, task.file.name, System.nanoTime() - start);
+        return rows[0];
+    }
+
+    /**
+     * New CSV for a task, failing if the name is taken; only files created
+     * here are deleted when the file fails
+     */
+    private Writer create(FileWork file, Path output) throws IOException {
+        Writer writer = dataService.newCsvWriter(output, Compression.NONE);
+        file.created.add(output);
+        return writer;
+    }
+
+    private static void concatenate(List<Path> parts, Path target, Set<Path> created) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            created.add(target);
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long pos = 0; pos < size;) {
+                        pos += in.transferTo(pos, size - pos, out);
+                    }
+                }
+            }
+        }
+    }
+
+    private void deleteQuietly(Collection<Path> paths) {
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Could not delete {}", path, e);
+            }
+        }
+    }
+
+    private static String safeName(String sheetName) {
+        return sheetName.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private static final class FileWork {
+
+        final String name;
+        final Path input;
+        final long size;
+        final List<Path> outputs = new ArrayList<>();
+        final List<Path> parts = new ArrayList<>();
+        // Written by this run, and so ours to delete on failure
+        final Set<Path> created = ConcurrentHashMap.newKeySet();
+        volatile String error;
+
+        FileWork(String name, Path input, long size) {
+            this.name = name;
+            this.input = input;
+            this.size = size;
+        }
+    }
+
+    private record SheetTask(FileWork file, int sheetIndex, String sheetName, Path output, boolean skipHeader) {
+
+    }
+}
@@ -0,0 +1,209 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.hamez.dataprocessing.util.ProgressListener;
+import dev.hamez.dataprocessing.util.StreamingExcelReader;
+import dev.hamez.dataprocessing.util.StreamingExcelReader.RowView;
+
+/**
+ * Excel-to-CSV conversion in two stages. The calling thread parses the sheet
+ * and copies rows into pooled batches; a writer thread adds the score offset,
+ * encodes CSV and writes it out. Only a fixed number of batches exist, so a
+ * slow writer stalls the parser instead of buffering the file in memory. A
+ * failure on either side stops the other. One instance per conversion.
+ * Callers that parse the sheet themselves can drive the writer side alone
+ * through {@link #start}, {@link #add} and {@link #finish}.
+ */
+class ExcelCsvPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelCsvPipeline.class);
+
+    private static final int PROGRESS_INTERVAL = 10000;
+    private static final long POLL_MS = 100;
+    private static final RowBatch END = new RowBatch(0);
+
+    private final int scoreOffset;
+    private final BlockingQueue<RowBatch> free;
+    private final BlockingQueue<RowBatch> filled;
+
+    private RowBatch current;
+    private ExecutorService writerThread;
+    private Future<?> writer;
+
+    // Parser-side stats, read on the calling thread
+    private long parseWaitNanos;
+
+    // Writer-side stats, published through the writer's Future
+    private long rowsWritten;
+    private long writeNanos;
+    private long writeWaitNanos;
+
+    /**
+     * @param batchSize rows per batch handed to the writer
+     * @param queueDepth batches that may wait for the writer before the parser
+     * blocks
+     * @param scoreOffset added to the last column of every row but the header
+     */
+    ExcelCsvPipeline(int batchSize, int queueDepth, int scoreOffset) {
+        this.scoreOffset = scoreOffset;
+        // One batch being filled, one being written, queueDepth in between
+        int batches = Math.max(1, queueDepth) + 2;
+        this.free = new ArrayBlockingQueue<>(batches);
+        this.filled = new ArrayBlockingQueue<>(batches + 1);
+        for (int i = 0; i < batches; i++) {
+            free.add(new RowBatch(Math.max(1, batchSize)));
+        }
+    }
+
+    /**
+     * Convert the first sheet of {@code in} to CSV on {@code out}. The writer
+     * is flushed but not closed.
+     */
+    ProcessResult run(InputStream in, Writer out, String outName, ProgressListener progress) throws Exception {
+        long start = System.nanoTime();
+        start(out);
+        try {
+            StreamingExcelReader.readExcelRows(in, (rowNum, row) -> {
+                add(rowNum, row);
+                if (rowNum % PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(rowNum - 1);
+                }
+            });
+            finish();
+        } catch (Exception e) {
+            abort();
+            throw e;
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long parseWaitMs = TimeUnit.NANOSECONDS.toMillis(parseWaitNanos);
+        ProcessResult result = new ProcessResult(outName, rowsWritten, durationMs, durationMs - parseWaitMs, parseWaitMs,
+                TimeUnit.NANOSECONDS.toMillis(writeNanos), TimeUnit.NANOSECONDS.toMillis(writeWaitNanos));
+        logger.info("Pipelined {} rows in {} ms (parse {} ms, waited on writer {} ms; write {} ms, waited on parser {} ms)",
+                result.rows, result.durationMs, result.parseMs, result.parseWaitMs, result.writeMs, result.writeWaitMs);
+        return result;
+    }
+
+    /**
+     * Start the writer thread. Rows then go in through {@link #add}, and the
+     * conversion ends with {@link #finish()} or {@link #abort()}.
+     */
+    void start(Writer out) throws Exception {
+        writerThread = Executors.newSingleThreadExecutor(r -> new Thread(r, "csv-writer"));
+        writer = writerThread.submit(() -> {
+            writeLoop(out);
+            return null;
+        });
+        current = acquire();
+    }
+
+    /**
+     * Copy a row into the current batch, handing the batch to the writer
+     * once full. Blocks while the writer is behind.
+     */
+    void add(int rowNum, RowView row) throws Exception {
+        current.add(rowNum, row);
+        if (current.isFull()) {
+            filled.add(current);
+            current = acquire();
+        }
+    }
+
+    /**
+     * Hand over the last rows and wait until the writer has flushed them
+     */
+    void finish() throws Exception {
+        try {
+            if (current.size > 0) {
+                filled.add(current);
+            }
+            filled.add(END);
+            awaitWriter();
+        } finally {
+            writerThread.shutdownNow();
+        }
+    }
+
+    /**
+     * Stop the writer whether it is waiting for rows or writing them
+     */
+    void abort() {
+        if (writer != null) {
+            writer.cancel(true);
+        }
+        if (writerThread != null) {
+            writerThread.shutdownNow();
+        }
+    }
+
+    long rowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Take an empty batch, blocking while the writer is behind. Fails fast if
+     * the writer has died.
+     */
+    private RowBatch acquire() throws Exception {
+        long waitStart = System.nanoTime();
+        try {
+            while (true) {
+                RowBatch batch = free.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    return batch;
+                }
+                if (writer.isDone()) {
+                    awaitWriter();
+                    throw new IllegalStateException("CSV writer stopped before the sheet was read");
+                }
+            }
+        } finally {
+            parseWaitNanos += System.nanoTime() - waitStart;
+        }
+    }
+
+    private void awaitWriter() throws Exception {
+        try {
+            writer.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void writeLoop(Writer out) throws Exception {
+        CsvBatchWriter csv = new CsvBatchWriter(out, scoreOffset);
+        while (true) {
+            long waitStart = System.nanoTime();
+            RowBatch batch = filled.take();
+            long workStart = System.nanoTime();
+            writeWaitNanos += workStart - waitStart;
+            if (batch == END) {
+                break;
+            }
+            csv.write(batch);
+            rowsWritten += batch.size;
+
+            batch.clear();
+            free.add(batch);
+            writeNanos += System.nanoTime() - workStart;
+        }
+        long flushStart = System.nanoTime();
+        out.flush();
+        writeNanos += System.nanoTime() - flushStart;
+    }
+}
@@ -0,0 +1,37 @@
+package dev.hamez.dataprocessing.service;
+
+/**
+ * Outcome of a CSV-to-database import. For a checkpointed import,
+ * {@code runId} names the run and {@code resumedAtRow} is the number of CSV
+ * records an earlier attempt had already committed; both are unset otherwise.
+ * {@code csvFile} is the processed CSV written alongside a direct workbook
+ * import, if one was requested.
+ */
+public class ImportResult {
+
+    public final long rows;
+    public final long chunks;
+    public final long durationMs;
+    public final double rowsPerSecond;
+    public final String runId;
+    public final long resumedAtRow;
+    public final String csvFile;
+
+    public ImportResult(long rows, long chunks, long durationMs) {
+        this(rows, chunks, durationMs, null, 0);
+    }
+
+    public ImportResult(long rows, long chunks, long durationMs, String runId, long resumedAtRow) {
+        this(rows, chunks, durationMs, runId, resumedAtRow, null);
+    }
+
+    public ImportResult(long rows, long chunks, long durationMs, String runId, long resumedAtRow, String csvFile) {
+        this.rows = rows;
+        this.chunks = chunks;
+        this.durationMs = durationMs;
+        this.rowsPerSecond = durationMs > 0 ? rows * 1000.0 / durationMs : rows;
+        this.runId = runId;
+        this.resumedAtRow = resumedAtRow;
+        this.csvFile = csvFile;
+    }
+}
@@ -0,0 +1,78 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.OutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import dev.hamez.dataprocessing.util.Compression;
+import dev.hamez.dataprocessing.util.ParallelCompressingOutputStream;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Wraps CSV output of {@code /process} and the exports in the requested
+ * compression, with the block size, thread count and levels from
+ * {@code app.compression.*}. All streams share one pool of
+ * {@code app.compression.parallelism} threads, so concurrent exports queue
+ * for it rather than each starting threads of its own.
+ */
+@Component
+public class OutputCompressor {
+
+    /**
+     * The property defaults, for services built outside Spring
+     */
+    public static final OutputCompressor DEFAULTS = new OutputCompressor(4, 1024, 6, 3);
+
+    private final int parallelism;
+    private final int blockSize;
+    private final int gzipLevel;
+    private final int zstdLevel;
+    // null when parallelism is 1: blocks are compressed on the writing thread
+    private final ThreadPoolExecutor pool;
+
+    public OutputCompressor(@Value("${app.compression.parallelism:4}") int parallelism,
+            @Value("${app.compression.block-size-kb:1024}") int blockSizeKb,
+            @Value("${app.compression.gzip-level:6}") int gzipLevel,
+            @Value("${app.compression.zstd-level:3}") int zstdLevel) {
+        this.parallelism = Math.max(1, Math.min(parallelism, Runtime.getRuntime().availableProcessors()));
+        this.blockSize = Math.max(64, blockSizeKb) * 1024;
+        this.gzipLevel = gzipLevel;
+        this.zstdLevel = zstdLevel;
+        if (this.parallelism == 1) {
+            this.pool = null;
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(this.parallelism, this.parallelism, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "compress-" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            this.pool.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * {@code out} itself for {@link Compression#NONE}; closing the returned
+     * stream closes {@code out}
+     */
+    public OutputStream compress(OutputStream out, Compression compression) {
+        if (compression == Compression.NONE) {
+            return out;
+        }
+        int level = compression == Compression.GZIP ? gzipLevel : zstdLevel;
+        return new ParallelCompressingOutputStream(out, compression, level, blockSize, pool, parallelism * 2);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
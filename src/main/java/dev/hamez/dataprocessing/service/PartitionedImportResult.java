@@ -0,0 +1,52 @@
+package dev.hamez.dataprocessing.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import split into byte ranges that were loaded at the same
+ * time over separate connections. A failed partition keeps the chunks it had
+ * committed and does not stop the others. Totals cover the whole import,
+ * wall clock.
+ */
+public class PartitionedImportResult {
+
+    public final long rows;
+    public final long durationMs;
+    public final double rowsPerSecond;
+    public final int failedPartitions;
+    public final List<Partition> partitions;
+
+    public PartitionedImportResult(long durationMs, List<Partition> partitions) {
+        this.rows = partitions.stream().mapToLong(p -> p.rows).sum();
+        this.durationMs = durationMs;
+        this.rowsPerSecond = durationMs > 0 ? rows * 1000.0 / durationMs : rows;
+        this.failedPartitions = (int) partitions.stream().filter(p -> p.error != null).count();
+        this.partitions = partitions;
+    }
+
+    /**
+     * One byte range of the file and what its connection committed
+     */
+    public static class Partition {
+
+        public final int index;
+        public final long startByte;
+        public final long endByte;
+        public final long rows;
+        public final long chunks;
+        public final long durationMs;
+        public final double rowsPerSecond;
+        public final String error;
+
+        public Partition(int index, long startByte, long endByte, long rows, long chunks, long durationMs, String error) {
+            this.index = index;
+            this.startByte = startByte;
+            this.endByte = endByte;
+            this.rows = rows;
+            this.chunks = chunks;
+            this.durationMs = durationMs;
+            this.rowsPerSecond = durationMs > 0 ? rows * 1000.0 / durationMs : rows;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package dev.hamez.dataprocessing.service;
+
+/**
+ * Outcome of a pipelined Excel-to-CSV conversion, with per-stage timings.
+ * Wait times are time a stage spent blocked on the other one: parse wait is
+ * backpressure from the writer, write wait is the writer starved for rows.
+ */
+public class ProcessResult {
+
+    public final String file;
+    public final long rows;
+    public final long durationMs;
+    public final double rowsPerSecond;
+    public final long parseMs;
+    public final long parseWaitMs;
+    public final long writeMs;
+    public final long writeWaitMs;
+
+    public ProcessResult(String file, long rows, long durationMs, long parseMs, long parseWaitMs, long writeMs, long writeWaitMs) {
+        this.file = file;
+        this.rows = rows;
+        this.durationMs = durationMs;
+        this.rowsPerSecond = durationMs > 0 ? rows * 1000.0 / durationMs : rows;
+        this.parseMs = parseMs;
+        this.parseWaitMs = parseWaitMs;
+        this.writeMs = writeMs;
+        this.writeWaitMs = writeWaitMs;
+    }
+}
@@ -0,0 +1,58 @@
+package dev.hamez.dataprocessing.service;
+
+import java.util.Arrays;
+
+import dev.hamez.dataprocessing.util.StreamingExcelReader.RowView;
+
+/**
+ * A block of rows copied out of the reader's reusable view: all cell text back
+ * to back in {@code chars}, cell {@code c} ending at {@code cellEnds[c]} and
+ * row {@code r}'s cells ending at {@code rowCellEnds[r]}. Cleared and reused
+ * rather than reallocated.
+ */
+final class RowBatch {
+
+    final int[] rowNums;
+    final int[] rowCellEnds;
+    int[] cellEnds;
+    char[] chars;
+    int size;
+    int cellCount;
+    int length;
+
+    RowBatch(int capacity) {
+        this.rowNums = new int[capacity];
+        this.rowCellEnds = new int[capacity];
+        this.cellEnds = new int[capacity * 8];
+        this.chars = new char[capacity * 64];
+    }
+
+    void add(int rowNum, RowView row) {
+        int n = row.size();
+        if (cellCount + n > cellEnds.length) {
+            cellEnds = Arrays.copyOf(cellEnds, Math.max(cellEnds.length * 2, cellCount + n));
+        }
+        for (int i = 0; i < n; i++) {
+            int len = row.get(i).length();
+            if (length + len > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + len));
+            }
+            row.getChars(i, chars, length);
+            length += len;
+            cellEnds[cellCount++] = length;
+        }
+        rowNums[size] = rowNum;
+        rowCellEnds[size] = cellCount;
+        size++;
+    }
+
+    boolean isFull() {
+        return size == rowNums.length;
+    }
+
+    void clear() {
+        size = 0;
+        cellCount = 0;
+        length = 0;
+    }
+}
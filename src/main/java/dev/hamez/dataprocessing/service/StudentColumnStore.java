@@ -0,0 +1,143 @@
+package dev.hamez.dataprocessing.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Holds the current {@link StudentColumns} snapshot when
+ * {@code app.columnar.enabled} is set. The snapshot is loaded in the
+ * background once the application is ready and reloaded shortly after
+ * writers call {@link #invalidate()}; invalidations that arrive during the
+ * delay or a load fold into one more load. Queries see the previous snapshot
+ * until the new one is complete, so results may lag writes by the delay plus
+ * the load time.
+ */
+@Component
+public class StudentColumnStore {
+
+    private final Logger logger = LoggerFactory.getLogger(StudentColumnStore.class);
+
+    private static final String SELECT_STUDENTS
+            = "SELECT student_id, first_name, last_name, dob, class_name, score FROM students ORDER BY student_id";
+    private static final int FETCH_SIZE = 10000;
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final long refreshDelayMs;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final ScheduledExecutorService loader;
+
+    private volatile StudentColumns snapshot;
+
+    public StudentColumnStore(DataSource dataSource, @Value("${app.columnar.enabled:false}") boolean enabled,
+            @Value("${app.columnar.refresh-delay-ms:2000}") long refreshDelayMs) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.refreshDelayMs = refreshDelayMs;
+        this.loader = enabled ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "columnar-loader");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The current snapshot
+     *
+     * @throws IllegalStateException if the store is disabled or the first
+     * load has not finished
+     */
+    public StudentColumns snapshot() {
+        if (!enabled) {
+            throw new IllegalStateException("Columnar store is disabled (app.columnar.enabled=false)");
+        }
+        StudentColumns current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Columnar snapshot is still loading");
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled) {
+            refreshPending.set(true);
+            loader.execute(this::refresh);
+        }
+    }
+
+    /**
+     * Schedule a reload after students were written. Cheap enough to call
+     * after every committed chunk.
+     */
+    public void invalidate() {
+        if (enabled && refreshPending.compareAndSet(false, true)) {
+            loader.schedule(this::refresh, refreshDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        // Cleared before reading, so a write during the load schedules another one
+        refreshPending.set(false);
+        try {
+            long start = System.nanoTime();
+            StudentColumns loaded = load();
+            snapshot = loaded;
+            logger.info("Loaded columnar snapshot of {} students in {} ms", loaded.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            logger.error("Failed to load columnar snapshot", e);
+        }
+    }
+
+    private StudentColumns load() throws Exception {
+        StudentColumns.Builder builder = new StudentColumns.Builder();
+        try (Connection conn = dataSource.getConnection()) {
+            // A cursor only streams inside a transaction
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try (PreparedStatement ps = conn.prepareStatement(SELECT_STUDENTS)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        builder.add(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getObject(4, LocalDate.class),
+                                rs.getString(5), rs.getObject(6, Integer.class));
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setReadOnly(false);
+                conn.setAutoCommit(true);
+            }
+        }
+        return builder.build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (loader != null) {
+            loader.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package dev.hamez.dataprocessing.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import dev.hamez.dataprocessing.entity.Student;
+
+/**
+ * Read-only column-wise copy of the students table. Id, score and date of
+ * birth (as an epoch day) are primitive arrays; class and names are codes
+ * into dictionaries. Scans walk the arrays with branch-free comparisons, so
+ * the JIT can unroll and vectorize them. Missing scores and dates are
+ * {@link #NULL}.
+ */
+public final class StudentColumns {
+
+    static final int NULL = Integer.MIN_VALUE;
+
+    // Code of a filter class that is not in the dictionary
+    private static final int NO_CLASS = -2;
+    private static final int MAX_BUCKETS = 1_000_000;
+
+    public static final StudentColumns EMPTY = new Builder().build();
+
+    private final int size;
+    private final long[] ids;
+    private final int[] scores;
+    private final int[] dobs;
+    private final int[] classes;
+    private final int[] firstNames;
+    private final int[] lastNames;
+    private final String[] classNames;
+    private final String[] names;
+    private final int minScore;
+    private final int maxScore;
+    private final Instant loadedAt = Instant.now();
+
+    private StudentColumns(Builder b) {
+        this.size = b.size;
+        this.ids = Arrays.copyOf(b.ids, size);
+        this.scores = Arrays.copyOf(b.scores, size);
+        this.dobs = Arrays.copyOf(b.dobs, size);
+        this.classes = Arrays.copyOf(b.classes, size);
+        this.firstNames = Arrays.copyOf(b.firstNames, size);
+        this.lastNames = Arrays.copyOf(b.lastNames, size);
+        this.classNames = b.classNames.toArray(String[]::new);
+        this.names = b.names.toArray(String[]::new);
+        this.minScore = b.minScore;
+        this.maxScore = b.maxScore;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Number of students matching the filter
+     */
+    public long count(StudentFilter filter) {
+        Bounds f = bounds(filter);
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            count += f.matches(classes[i], scores[i], dobs[i]) ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Score statistics of the matching students per class, in class name
+     * order, shaped like the summary-table statistics
+     */
+    public List<ClassSummary> summarize(StudentFilter filter, int bucketWidth) {
+        Bounds f = bounds(filter);
+        int classCount = classNames.length;
+        long[] students = new long[classCount];
+        long[] scored = new long[classCount];
+        long[] sums = new long[classCount];
+        int[] mins = new int[classCount];
+        int[] maxs = new int[classCount];
+        Arrays.fill(mins, Integer.MAX_VALUE);
+        Arrays.fill(maxs, Integer.MIN_VALUE);
+        // Buckets counted from the lowest bucket that any score falls in
+        int base = Math.floorDiv(minScore, bucketWidth);
+        long buckets = maxScore < minScore ? 0 : Math.floorDiv(maxScore, bucketWidth) - (long) base + 1;
+        if (buckets * classCount > MAX_BUCKETS) {
+            throw new IllegalArgumentException("bucketWidth " + bucketWidth + " is too small for scores "
+                    + minScore + ".." + maxScore);
+        }
+        long[][] histograms = new long[classCount][(int) buckets];
+
+        for (int i = 0; i < size; i++) {
+            int c = classes[i];
+            int score = scores[i];
+            if (!f.matches(c, score, dobs[i])) {
+                continue;
+            }
+            students[c]++;
+            if (score != NULL) {
+                scored[c]++;
+                sums[c] += score;
+                mins[c] = Math.min(mins[c], score);
+                maxs[c] = Math.max(maxs[c], score);
+                histograms[c][Math.floorDiv(score, bucketWidth) - base]++;
+            }
+        }
+
+        Map<String, ClassSummary> result = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        for (int c = 0; c < classCount; c++) {
+            if (students[c] == 0) {
+                continue;
+            }
+            Map<Integer, Long> histogram = new LinkedHashMap<>();
+            for (int b = 0; b < buckets; b++) {
+                if (histograms[c][b] > 0) {
+                    histogram.put((base + b) * bucketWidth, histograms[c][b]);
+                }
+            }
+            boolean any = scored[c] > 0;
+            result.put(classNames[c], new ClassSummary(classNames[c], students[c], scored[c], sums[c],
+                    any ? mins[c] : null, any ? maxs[c] : null, bucketWidth, histogram));
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * The first {@code limit} matching students in studentId order, rebuilt
+     * from the columns as detached entities
+     */
+    public List<Student> find(StudentFilter filter, int limit) {
+        Bounds f = bounds(filter);
+        List<Student> result = new ArrayList<>(Math.min(limit, 1024));
+        for (int i = 0; i < size && result.size() < limit; i++) {
+            if (f.matches(classes[i], scores[i], dobs[i])) {
+                Student s = new Student();
+                s.setStudentId(ids[i]);
+                s.setFirstName(names[firstNames[i]]);
+                s.setLastName(names[lastNames[i]]);
+                s.setDob(dobs[i] == NULL ? null : LocalDate.ofEpochDay(dobs[i]));
+                s.setClassName(classNames[classes[i]]);
+                s.setScore(scores[i] == NULL ? null : scores[i]);
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    private Bounds bounds(StudentFilter filter) {
+        int classCode = -1;
+        if (filter.className() != null) {
+            classCode = NO_CLASS;
+            for (int c = 0; c < classNames.length; c++) {
+                if (filter.className().equals(classNames[c])) {
+                    classCode = c;
+                }
+            }
+        }
+        // NULL is the smallest int, so a lower bound above it also rules out missing values
+        boolean scoreBound = filter.minScore() != null || filter.maxScore() != null;
+        boolean dobBound = filter.bornFrom() != null || filter.bornTo() != null;
+        return new Bounds(classCode,
+                filter.minScore() != null ? Math.max(filter.minScore(), NULL + 1) : scoreBound ? NULL + 1 : NULL,
+                filter.maxScore() != null ? filter.maxScore() : Integer.MAX_VALUE,
+                filter.bornFrom() != null ? epochDay(filter.bornFrom()) : dobBound ? NULL + 1 : NULL,
+                filter.bornTo() != null ? epochDay(filter.bornTo()) : Integer.MAX_VALUE);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return (int) Math.max(NULL + 1, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    private record Bounds(int classCode, int scoreMin, int scoreMax, int dobMin, int dobMax) {
+
+        boolean matches(int c, int score, int dob) {
+            // Non-short-circuit & keeps the loop free of branches
+            return (classCode == -1 | c == classCode) & score >= scoreMin & score <= scoreMax & dob >= dobMin & dob <= dobMax;
+        }
+    }
+
+    /**
+     * Collects rows in studentId order
+     */
+    static final class Builder {
+
+        private int size;
+        private long[] ids = new long[1024];
+        private int[] scores = new int[1024];
+        private int[] dobs = new int[1024];
+        private int[] classes = new int[1024];
+        private int[] firstNames = new int[1024];
+        private int[] lastNames = new int[1024];
+        private final List<String> classNames = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> classCodes = new HashMap<>();
+        private final Map<String, Integer> nameCodes = new HashMap<>();
+        private int minScore = Integer.MAX_VALUE;
+        private int maxScore = Integer.MIN_VALUE;
+
+        Builder add(long id, String firstName, String lastName, LocalDate dob, String className, Integer score) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                dobs = Arrays.copyOf(dobs, capacity);
+                classes = Arrays.copyOf(classes, capacity);
+                firstNames = Arrays.copyOf(firstNames, capacity);
+                lastNames = Arrays.copyOf(lastNames, capacity);
+            }
+            ids[size] = id;
+            // NULL itself cannot be stored as a score
+            scores[size] = score == null || score == NULL ? NULL : score;
+            dobs[size] = dob == null ? NULL : epochDay(dob);
+            classes[size] = code(className, classNames, classCodes);
+            firstNames[size] = code(firstName, names, nameCodes);
+            lastNames[size] = code(lastName, names, nameCodes);
+            if (scores[size] != NULL) {
+                minScore = Math.min(minScore, score);
+                maxScore = Math.max(maxScore, score);
+            }
+            size++;
+            return this;
+        }
+
+        StudentColumns build() {
+            return new StudentColumns(this);
+        }
+
+        private static int code(String value, List<String> dictionary, Map<String, Integer> codes) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.hamez.dataprocessing.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position in a student report: the class filter (null for all classes) and
+ * the last studentId returned. Clients see it only as an opaque URL-safe
+ * token.
+ */
+public record StudentCursor(String className, long lastStudentId) {
+
+    private static final String VERSION = "v1";
+
+    public String encode() {
+        String raw = VERSION + ":" + lastStudentId + ":" + (className == null ? "" : "=" + className);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a cursor
+     */
+    public static StudentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0]) || !(parts[2].isEmpty() || parts[2].startsWith("="))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String className = parts[2].isEmpty() ? null : parts[2].substring(1);
+            return new StudentCursor(className, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Whether this cursor was issued for the given class filter
+     */
+    public boolean matches(String className) {
+        return Objects.equals(this.className, className);
+    }
+}
@@ -0,0 +1,13 @@
+package dev.hamez.dataprocessing.service;
+
+import java.time.LocalDate;
+
+/**
+ * Conditions for an analytics scan; null means no condition. Score and date
+ * bounds are inclusive, and a student without a score or date of birth never
+ * matches a bound on it.
+ */
+public record StudentFilter(String className, Integer minScore, Integer maxScore, LocalDate bornFrom, LocalDate bornTo) {
+
+    public static final StudentFilter ALL = new StudentFilter(null, null, null, null, null);
+}
@@ -0,0 +1,144 @@
+package dev.hamez.dataprocessing.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache for the report queries dashboards repeat all day. Entries
+ * expire after a TTL and are bounded by the total number of student rows they
+ * hold. A write evicts exactly the entries that can see it: those filtered on
+ * a written class, and the unfiltered ones.
+ */
+@Component
+public class StudentQueryCache implements MeterBinder {
+
+    private final Cache<Key, Object> cache;
+    private final long maxRows;
+
+    // Bumped by every eviction; a load that overlaps one is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public StudentQueryCache(@Value("${app.cache.report.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.cache.report.max-rows:100000}") long maxRows) {
+        this.maxRows = maxRows;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumWeight(Math.max(0, maxRows))
+                .weigher((Key key, Object value) -> rows(value))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Cached result of a query, loading it on a miss
+     *
+     * @param className the query's class filter, null if it spans all classes
+     * @param query query name and arguments, compared by equals
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String className, Object[] query, Supplier<T> loader) {
+        if (maxRows <= 0) {
+            return loader.get();
+        }
+        Key key = new Key(className, Arrays.asList(query));
+        T value = (T) cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long stamp = generation.get();
+        value = loader.get();
+        // Skip results too large to keep, and results that may predate a concurrent write
+        if (value != null && rows(value) <= maxRows && generation.get() == stamp) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Drop every entry that could include rows of the given classes. Call
+     * after the write has committed.
+     */
+    public void evictClasses(Collection<String> classNames) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.className == null || classNames.contains(key.className));
+    }
+
+    /**
+     * Drop everything, for writes whose classes are not known
+     */
+    public void evictAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public Stats stats() {
+        return new Stats(cache.estimatedSize(), cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L),
+                cache.stats(), invalidations.get());
+    }
+
+    /**
+     * Publish the cache's hit, miss and eviction counters as cache.* meters
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "report");
+    }
+
+    private static int rows(Object value) {
+        if (value instanceof Page<?> page) {
+            return Math.max(1, page.getNumberOfElements());
+        }
+        if (value instanceof Collection<?> list) {
+            return Math.max(1, list.size());
+        }
+        return 1;
+    }
+
+    private record Key(String className, List<Object> query) {
+
+    }
+
+    /**
+     * Counters since startup. Evictions are entries dropped for size or age;
+     * invalidations are write-driven evictions.
+     */
+    public static class Stats {
+
+        public final long entries;
+        public final long cachedRows;
+        public final long hits;
+        public final long misses;
+        public final double hitRate;
+        public final long evictions;
+        public final long invalidations;
+
+        Stats(long entries, long cachedRows, CacheStats stats, long invalidations) {
+            this.entries = entries;
+            this.cachedRows = cachedRows;
+            this.hits = stats.hitCount();
+            this.misses = stats.missCount();
+            this.hitRate = stats.hitRate();
+            this.evictions = stats.evictionCount();
+            this.invalidations = invalidations;
+        }
+    }
+}
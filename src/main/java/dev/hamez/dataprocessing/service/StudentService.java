@@ -2,6 +2,7 @@ package dev.hamez.dataprocessing.service;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,8 +11,47 @@ import dev.hamez.dataprocessing.entity.Student;
 
 public interface StudentService {
 
+    /**
+     * Callback that consumes a forward-only stream of students
+     */
+    @FunctionalInterface
+    interface StudentStreamHandler {
+
+        void handle(Stream<Student> students) throws IOException;
+    }
+
     Page<Student> search(Long studentId, String className, Pageable pageable);
 
+    /**
+     * Keyset page of students in studentId order, optionally within one
+     * class. Page depth does not affect cost: each page seeks past the last
+     * studentId of the previous one.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     * first page
+     * @throws IllegalArgumentException if the cursor is malformed or was
+     * issued for a different className
+     */
+    CursorPage<Student> searchAfter(String className, String cursor, int size, CursorPage.CountMode countMode);
+
+    /**
+     * Per-class score statistics of the students matching a filter, scanned
+     * from the in-memory columnar snapshot
+     *
+     * @throws IllegalStateException if the columnar store is disabled or
+     * still loading
+     */
+    List<ClassSummary> summarize(StudentFilter filter, int bucketWidth);
+
+    /**
+     * Up to {@code limit} students matching a filter in studentId order, from
+     * the columnar snapshot
+     *
+     * @throws IllegalStateException if the columnar store is disabled or
+     * still loading
+     */
+    List<Student> filter(StudentFilter filter, int limit);
+
     Student save(Student s);
 
     List<Student> saveAll(List<Student> students);
@@ -20,9 +60,30 @@ public interface StudentService {
 
     List<Student> findByClassName(String className);
 
-    void exportToExcel(List<Student> students, java.io.OutputStream out) throws IOException;
+    /**
+     * Pass the students of a class (all students if className is null) to
+     * {@code handler} in studentId order, read through a database cursor with
+     * a bounded fetch size. Entities are detached as they are read, so memory
+     * stays flat whatever the table size. The stream is only valid inside the
+     * handler.
+     */
+    void streamByClassName(String className, StudentStreamHandler handler) throws IOException;
+
+    void exportToExcel(Stream<Student> students, java.io.OutputStream out) throws IOException;
+
+    void exportToCsv(Stream<Student> students, java.io.Writer writer) throws IOException;
+
+    void exportToPdf(Stream<Student> students, java.io.OutputStream out) throws IOException;
+
+    default void exportToExcel(List<Student> students, java.io.OutputStream out) throws IOException {
+        exportToExcel(students.stream(), out);
+    }
 
-    void exportToCsv(List<Student> students, java.io.Writer writer) throws IOException;
+    default void exportToCsv(List<Student> students, java.io.Writer writer) throws IOException {
+        exportToCsv(students.stream(), writer);
+    }
 
-    void exportToPdf(List<Student> students, java.io.OutputStream out) throws IOException;
+    default void exportToPdf(List<Student> students, java.io.OutputStream out) throws IOException {
+        exportToPdf(students.stream(), out);
+    }
 }
@@ -0,0 +1,42 @@
+package dev.hamez.dataprocessing.service;
+
+import java.util.List;
+
+/**
+ * State of a chunked upload. {@code missing} lists the byte ranges
+ * ({@code start} inclusive, {@code end} exclusive) still to be sent; once it
+ * is empty the upload can be completed. {@code sha256} is set after the file
+ * was verified and moved into the storage directory under {@code filename}.
+ */
+public class UploadStatus {
+
+    public final String uploadId;
+    public final String filename;
+    public final long size;
+    public final long received;
+    public final List<Range> missing;
+    public final boolean completed;
+    public final String sha256;
+
+    public UploadStatus(String uploadId, String filename, long size, long received, List<Range> missing,
+            boolean completed, String sha256) {
+        this.uploadId = uploadId;
+        this.filename = filename;
+        this.size = size;
+        this.received = received;
+        this.missing = missing;
+        this.completed = completed;
+        this.sha256 = sha256;
+    }
+
+    public static class Range {
+
+        public final long start;
+        public final long end;
+
+        public Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -3,51 +3,213 @@ package dev.hamez.dataprocessing.service.impl;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opencsv.CSVWriter;
 
 import dev.hamez.dataprocessing.entity.Student;
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.repository.ClassStatsDelta;
 import dev.hamez.dataprocessing.repository.StudentRepository;
+import dev.hamez.dataprocessing.service.ClassStatsService;
+import dev.hamez.dataprocessing.service.ClassSummary;
+import dev.hamez.dataprocessing.service.CursorPage;
+import dev.hamez.dataprocessing.service.CursorPage.CountMode;
+import dev.hamez.dataprocessing.service.StudentColumnStore;
+import dev.hamez.dataprocessing.service.StudentCursor;
+import dev.hamez.dataprocessing.service.StudentFilter;
+import dev.hamez.dataprocessing.service.StudentQueryCache;
 import dev.hamez.dataprocessing.service.StudentService;
+import dev.hamez.dataprocessing.util.PdfTableWriter;
+import dev.hamez.dataprocessing.util.XlsxPackageWriter;
+import jakarta.persistence.EntityManager;
 
 @Service
 public class StudentServiceImpl implements StudentService {
 
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // saveAll serves the JPA mode of the upload endpoint
+    private static final String UPLOAD_ENDPOINT = "/api/data/upload";
+
     private final StudentRepository repository;
+    private final EntityManager entityManager;
+    private final StudentQueryCache queryCache;
+    private final ClassStatsService classStats;
+    private final TransactionTemplate transactions;
+    private final PipelineMetrics metrics;
+    private final StudentColumnStore columnStore;
+    // Rows saveAll persists between flushing and clearing the persistence context
+    private final int flushInterval;
+    private final int xlsxCompressionLevel;
+    // Rows per exported sheet, header included
+    private final int maxRowsPerSheet;
+    // Most rows in a PDF export (0 = no limit), layout threads, and heap used
+    // for page contents before they spill to scratch files
+    private final int pdfMaxRows;
+    private final int pdfParallelism;
+    private final int pdfMemoryMb;
 
-    public StudentServiceImpl(StudentRepository repository) {
+    public StudentServiceImpl(StudentRepository repository, EntityManager entityManager, StudentQueryCache queryCache,
+            ClassStatsService classStats, TransactionTemplate transactions, PipelineMetrics metrics,
+            StudentColumnStore columnStore,
+            @Value("${app.jpa.flush-interval:5000}") int flushInterval,
+            @Value("${app.xlsx.compression-level:-1}") int xlsxCompressionLevel,
+            @Value("${app.export.xlsx.max-rows-per-sheet:" + XlsxPackageWriter.MAX_ROWS_PER_SHEET + "}") int maxRowsPerSheet,
+            @Value("${app.export.pdf.max-rows:1000000}") int pdfMaxRows,
+            @Value("${app.export.pdf.parallelism:4}") int pdfParallelism,
+            @Value("${app.export.pdf.memory-mb:32}") int pdfMemoryMb) {
         this.repository = repository;
+        this.entityManager = entityManager;
+        this.queryCache = queryCache;
+        this.classStats = classStats;
+        this.transactions = transactions;
+        this.metrics = metrics;
+        this.columnStore = columnStore;
+        this.flushInterval = flushInterval;
+        this.xlsxCompressionLevel = xlsxCompressionLevel;
+        this.maxRowsPerSheet = Math.min(maxRowsPerSheet, XlsxPackageWriter.MAX_ROWS_PER_SHEET);
+        this.pdfMaxRows = pdfMaxRows;
+        this.pdfParallelism = pdfParallelism;
+        this.pdfMemoryMb = pdfMemoryMb;
     }
 
     @Override
     public Page<Student> search(Long studentId, String className, Pageable pageable) {
-        return repository.search(studentId, className, pageable);
+        return queryCache.get(className, new Object[]{"search", studentId, pageable},
+                () -> repository.search(studentId, className, pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Student> searchAfter(String className, String cursor, int size, CountMode countMode) {
+        long afterId = Long.MIN_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            StudentCursor position = StudentCursor.decode(cursor);
+            if (!position.matches(className)) {
+                throw new IllegalArgumentException("Cursor was issued for a different className");
+            }
+            afterId = position.lastStudentId();
+        }
+
+        // Fetch one extra row to learn whether there is a next page
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Student> rows = className == null
+                ? repository.findPageAfter(afterId, limit)
+                : repository.findClassPageAfter(className, afterId, limit);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = new ArrayList<>(rows.subList(0, size));
+            nextCursor = new StudentCursor(className, rows.get(size - 1).getStudentId()).encode();
+        }
+
+        Long total = switch (countMode) {
+            case NONE -> null;
+            case EXACT -> queryCache.get(className, new Object[]{"count"},
+                    () -> className == null ? repository.count() : repository.countByClassName(className));
+            case ESTIMATE -> estimateCount(className);
+        };
+        return new CursorPage<>(rows, nextCursor, total, countMode == CountMode.ESTIMATE);
+    }
+
+    /**
+     * Planner row estimate for the report filter: constant time, as fresh as
+     * the table's last ANALYZE
+     */
+    private long estimateCount(String className) {
+        String sql = className == null
+                ? "EXPLAIN (FORMAT JSON) SELECT 1 FROM students"
+                : "EXPLAIN (FORMAT JSON) SELECT 1 FROM students WHERE class_name = ?";
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                if (className != null) {
+                    ps.setString(1, className);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return JSON.readTree(rs.getString(1)).path(0).path("Plan").path("Plan Rows").asLong();
+                } catch (JsonProcessingException e) {
+                    throw new SQLException("Unreadable EXPLAIN output", e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<ClassSummary> summarize(StudentFilter filter, int bucketWidth) {
+        return columnStore.snapshot().summarize(filter, bucketWidth);
+    }
+
+    @Override
+    public List<Student> filter(StudentFilter filter, int limit) {
+        return columnStore.snapshot().find(filter, limit);
     }
 
     @Override
     public Student save(Student s) {
-        return repository.save(s);
+        return saveAll(List.of(s)).get(0);
     }
 
     @Override
     public List<Student> saveAll(List<Student> students) {
-        return repository.saveAll(students);
+        // An update may move a student out of a class we cannot see any more
+        boolean updates = students.stream().anyMatch(s -> s.getStudentId() != null);
+        Set<String> classes = new HashSet<>();
+        students.forEach(s -> classes.add(s.getClassName()));
+
+        // Rows and class statistics commit together; the cache is evicted once they have
+        long start = System.nanoTime();
+        List<Student> saved = transactions.execute(status -> {
+            ClassStatsDelta delta = new ClassStatsDelta();
+            List<Student> result = new ArrayList<>(students.size());
+            for (int from = 0; from < students.size(); from += flushInterval) {
+                List<Student> chunk = students.subList(from, Math.min(students.size(), from + flushInterval));
+                if (updates) {
+                    List<Long> ids = chunk.stream().map(Student::getStudentId).filter(Objects::nonNull).toList();
+                    repository.findAllById(ids).forEach(old -> delta.remove(old.getClassName(), old.getScore()));
+                }
+                List<Student> chunkSaved = repository.saveAll(chunk);
+                chunkSaved.forEach(s -> delta.add(s.getClassName(), s.getScore()));
+                result.addAll(chunkSaved);
+                // Send the chunk as JDBC batches and detach it, so the persistence context stays small
+                entityManager.flush();
+                entityManager.clear();
+            }
+            classStats.apply(delta);
+            return result;
+        });
+        metrics.time("db-insert", UPLOAD_ENDPOINT, null, System.nanoTime() - start);
+        metrics.rows("imported", UPLOAD_ENDPOINT, null, saved.size());
+        if (updates) {
+            queryCache.evictAll();
+        } else {
+            queryCache.evictClasses(classes);
+        }
+        columnStore.invalidate();
+        return saved;
     }
 
     @Override
@@ -57,47 +219,63 @@ public class StudentServiceImpl implements StudentService {
 
     @Override
     public List<Student> findByClassName(String className) {
-        return repository.findByClassName(className);
+        return queryCache.get(className, new Object[]{"byClass"}, () -> repository.findByClassName(className));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public void exportToExcel(List<Student> students, OutputStream out) throws IOException {
-        try (XSSFWorkbook wb = new XSSFWorkbook()) {
-            XSSFSheet sheet = wb.createSheet("students");
-            int rownum = 0;
-            Row header = sheet.createRow(rownum++);
-            header.createCell(0).setCellValue("studentId");
-            header.createCell(1).setCellValue("firstName");
-            header.createCell(2).setCellValue("lastName");
-            header.createCell(3).setCellValue("dob");
-            header.createCell(4).setCellValue("className");
-            header.createCell(5).setCellValue("score");
+    public void streamByClassName(String className, StudentStreamHandler handler) throws IOException {
+        try (Stream<Student> students = repository.streamByClassName(className)) {
+            // Detach each row once read so the persistence context does not grow
+            handler.handle(students.peek(entityManager::detach));
+        }
+    }
+
+    /**
+     * Stream the students into an XLSX package. Once a sheet reaches Excel's
+     * row limit the export continues on a new sheet with the header repeated.
+     */
+    @Override
+    public void exportToExcel(Stream<Student> students, OutputStream out) throws IOException {
+        // Stream the sheet straight to the caller's stream; the writer must not close it
+        try (XlsxPackageWriter xlsx = new XlsxPackageWriter(CloseShieldOutputStream.wrap(out), xlsxCompressionLevel)) {
+            int sheet = 1;
+            startStudentSheet(xlsx, "students");
 
             DateTimeFormatter df = DateTimeFormatter.ISO_DATE;
-            for (Student s : students) {
-                Row r = sheet.createRow(rownum++);
-                int c = 0;
-                Cell cell = r.createCell(c++);
+            for (Student s : (Iterable<Student>) students::iterator) {
+                if (xlsx.getRowCount() >= maxRowsPerSheet) {
+                    startStudentSheet(xlsx, "students " + ++sheet);
+                }
+                xlsx.startRow();
                 if (s.getStudentId() != null) {
-                    cell.setCellValue(s.getStudentId());
+                    xlsx.numberCell(s.getStudentId());
+                } else {
+                    xlsx.blankCell();
                 }
-                r.createCell(c++).setCellValue(s.getFirstName() != null ? s.getFirstName() : "");
-                r.createCell(c++).setCellValue(s.getLastName() != null ? s.getLastName() : "");
-                r.createCell(c++).setCellValue(s.getDob() != null ? s.getDob().format(df) : "");
-                r.createCell(c++).setCellValue(s.getClassName() != null ? s.getClassName() : "");
-                r.createCell(c++).setCellValue(s.getScore() != null ? s.getScore().doubleValue() : 0.0);
+                xlsx.stringCell(s.getFirstName() != null ? s.getFirstName() : "");
+                xlsx.stringCell(s.getLastName() != null ? s.getLastName() : "");
+                xlsx.stringCell(s.getDob() != null ? s.getDob().format(df) : "");
+                xlsx.stringCell(s.getClassName() != null ? s.getClassName() : "");
+                xlsx.numberCell(s.getScore() != null ? s.getScore() : 0);
             }
-            wb.write(out);
+        }
+    }
+
+    private static void startStudentSheet(XlsxPackageWriter xlsx, String name) throws IOException {
+        xlsx.startSheet(name);
+        xlsx.startRow();
+        for (String h : new String[]{"studentId", "firstName", "lastName", "dob", "className", "score"}) {
+            xlsx.stringCell(h);
         }
     }
 
     @Override
-    public void exportToCsv(List<Student> students, Writer writer) throws IOException {
+    public void exportToCsv(Stream<Student> students, Writer writer) throws IOException {
         try (CSVWriter csv = new CSVWriter(writer)) {
             String[] header = {"studentId", "firstName", "lastName", "dob", "className", "score"};
             csv.writeNext(header);
-            for (Student s : students) {
+            for (Student s : (Iterable<Student>) students::iterator) {
                 csv.writeNext(new String[]{
                     s.getStudentId() == null ? "" : String.valueOf(s.getStudentId()),
                     s.getFirstName() == null ? "" : s.getFirstName(),
@@ -110,114 +288,35 @@ public class StudentServiceImpl implements StudentService {
         }
     }
 
-    @Override
-    public void exportToPdf(List<Student> students, OutputStream out) throws IOException {
-        // Improved PDF export: render a simple table with pagination using PDFBox.
-        try (PDDocument doc = new PDDocument()) {
-            final PDType1Font headerFont = PDType1Font.HELVETICA_BOLD;
-            final PDType1Font rowFont = PDType1Font.HELVETICA;
-            final float fontSize = 10f;
-            final float leading = 1.2f * fontSize;
-            final float margin = 50f;
-
-            float pageHeight = PDRectangle.LETTER.getHeight();
-            float usableHeight = pageHeight - 2 * margin;
-            float headerHeight = leading * 1.5f;
-            int rowsPerPage = Math.max(1, (int) ((usableHeight - headerHeight) / leading));
-
-            float[] colWidths = new float[]{60f, 90f, 90f, 80f, 80f, 50f};
-
-            // iterate in pages
-            for (int idx = 0; idx < students.size(); idx += rowsPerPage) {
-                int to = Math.min(students.size(), idx + rowsPerPage);
-                PDPage page = new PDPage(PDRectangle.LETTER);
-                doc.addPage(page);
-                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
-                    float startX = margin;
-                    float y = page.getMediaBox().getHeight() - margin;
-
-                    // header
-                    cs.setFont(headerFont, fontSize);
-                    cs.beginText();
-                    cs.newLineAtOffset(startX, y);
-                    String[] headers = new String[]{"ID", "First", "Last", "DOB", "Class", "Score"};
-                    for (int i = 0; i < headers.length; i++) {
-                        String h = fitText(headerFont, fontSize, headers[i], colWidths[i]);
-                        cs.showText(h);
-                        cs.newLineAtOffset(colWidths[i], 0);
-                    }
-                    cs.endText();
-                    y -= headerHeight;
-
-                    cs.setFont(rowFont, fontSize);
-                    for (int r = idx; r < to; r++) {
-                        Student s = students.get(r);
-                        cs.beginText();
-                        cs.newLineAtOffset(startX, y);
-                        String[] cols = new String[]{
-                            s.getStudentId() == null ? "" : String.valueOf(s.getStudentId()),
-                            s.getFirstName() == null ? "" : s.getFirstName(),
-                            s.getLastName() == null ? "" : s.getLastName(),
-                            s.getDob() == null ? "" : s.getDob().toString(),
-                            s.getClassName() == null ? "" : s.getClassName(),
-                            s.getScore() == null ? "" : String.valueOf(s.getScore())
-                        };
-                        for (int i = 0; i < cols.length; i++) {
-                            String cellText = fitText(rowFont, fontSize, cols[i], colWidths[i]);
-                            cs.showText(cellText);
-                            cs.newLineAtOffset(colWidths[i], 0);
-                        }
-                        cs.endText();
-                        y -= leading;
-                    }
-                }
-            }
-            doc.save(out);
-        }
-    }
-
     /**
-     * Fit text into the available width (points) using the provided font and
-     * size. If the text is too long, truncate and append ellipsis.
+     * Render the students as a paginated PDF table. Pages are laid out in
+     * parallel and page contents spill to scratch files past the configured
+     * memory; rows beyond the configured cap are left out and noted on the
+     * last page.
      */
-    private static String fitText(org.apache.pdfbox.pdmodel.font.PDFont font, float fontSize, String text, float maxWidth) {
-        if (text == null) {
-            return "";
-        }
-        try {
-            float w = font.getStringWidth(text) / 1000f * fontSize;
-            if (w <= maxWidth) {
-                return text;
-            }
-            String ell = "...";
-            int len = text.length();
-            // binary search for best length
-            int low = 0, high = len - 1, best = 0;
-            while (low <= high) {
-                int mid = (low + high) >>> 1;
-                String cand = text.substring(0, mid) + ell;
-                float cw = font.getStringWidth(cand) / 1000f * fontSize;
-                if (cw <= maxWidth) {
-                    best = mid;
-                    low = mid + 1;
-                } else {
-                    high = mid - 1;
+    @Override
+    public void exportToPdf(Stream<Student> students, OutputStream out) throws IOException {
+        String[] headers = {"ID", "First", "Last", "DOB", "Class", "Score"};
+        float[] colWidths = {60f, 90f, 90f, 80f, 80f, 50f};
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(pdfMemoryMb * 1024L * 1024L);
+
+        try (PdfTableWriter pdf = new PdfTableWriter(out, headers, colWidths, pdfParallelism, memory)) {
+            Iterator<Student> rows = students.iterator();
+            while (rows.hasNext()) {
+                if (pdfMaxRows > 0 && pdf.getRowCount() >= pdfMaxRows) {
+                    pdf.addRow("Export truncated at " + pdfMaxRows + " rows");
+                    break;
                 }
+                Student s = rows.next();
+                pdf.addRow(
+                        s.getStudentId() == null ? "" : String.valueOf(s.getStudentId()),
+                        s.getFirstName() == null ? "" : s.getFirstName(),
+                        s.getLastName() == null ? "" : s.getLastName(),
+                        s.getDob() == null ? "" : s.getDob().toString(),
+                        s.getClassName() == null ? "" : s.getClassName(),
+                        s.getScore() == null ? "" : String.valueOf(s.getScore()));
             }
-            if (best <= 0) {
-                return ell;
-            }
-            return text.substring(0, best) + ell;
-        } catch (java.io.IOException e) {
-            // fallback: simple character-based truncation
-            int maxChars = Math.max(1, (int) (maxWidth / (fontSize * 0.5f)));
-            if (text.length() <= maxChars) {
-                return text;
-            }
-            if (maxChars <= 3) {
-                return "...";
-            }
-            return text.substring(0, maxChars - 3) + "...";
+            pdf.finish();
         }
     }
 }
@@ -0,0 +1,95 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+/**
+ * Compression of CSV files in the storage directory. Readers tell the format
+ * from the first bytes of the file rather than its name, so a renamed file
+ * still reads.
+ */
+public enum Compression {
+
+    NONE("", "text/csv"),
+    GZIP(".gz", "application/gzip"),
+    ZSTD(".zst", "application/zstd");
+
+    private static final int BUFFER = 64 * 1024;
+
+    /**
+     * Appended to the {@code .csv} name
+     */
+    public final String suffix;
+    public final String contentType;
+
+    Compression(String suffix, String contentType) {
+        this.suffix = suffix;
+        this.contentType = contentType;
+    }
+
+    /**
+     * {@code none}, {@code gzip} or {@code zstd}; blank means none
+     */
+    public static Compression parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Format of a file, from its magic number
+     */
+    public static Compression detect(Path file) throws IOException {
+        byte[] magic = new byte[4];
+        int n;
+        try (InputStream in = Files.newInputStream(file)) {
+            n = in.readNBytes(magic, 0, 4);
+        }
+        if (n >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            return GZIP;
+        }
+        // Frame magic 0xFD2FB528, little-endian
+        if (n == 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5 && (magic[2] & 0xff) == 0x2f
+                && (magic[3] & 0xff) == 0xfd) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    /**
+     * Stream the file's content, decompressing it if needed. Files written in
+     * blocks (several gzip members or zstd frames) read as one stream.
+     */
+    public static InputStream open(Path file) throws IOException {
+        Compression compression = detect(file);
+        InputStream in = Files.newInputStream(file);
+        try {
+            return switch (compression) {
+                case NONE -> in;
+                case GZIP -> new GZIPInputStream(in, BUFFER);
+                case ZSTD -> new BufferedInputStream(new ZstdInputStream(in), BUFFER);
+            };
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * UTF-8 reader over {@link #open(Path)}
+     */
+    public static BufferedReader newReader(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8), BUFFER);
+    }
+}
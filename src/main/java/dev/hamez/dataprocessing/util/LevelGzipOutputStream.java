@@ -0,0 +1,19 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link GZIPOutputStream} at a chosen deflate level, with a 64 KB buffer
+ */
+public class LevelGzipOutputStream extends GZIPOutputStream {
+
+    /**
+     * @param level 1 (fastest) to 9 (smallest)
+     */
+    public LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+        super(out, 64 * 1024);
+        def.setLevel(level);
+    }
+}
@@ -0,0 +1,457 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Parallel CSV reader for local files. The file is memory-mapped and cut into
+ * chunks that end on record boundaries, and the chunks are parsed at the same
+ * time on a ForkJoin pool. Records are handed out as a {@link Record} view
+ * over the mapped bytes, so numbers and dates can be read without creating
+ * strings. Parsing follows RFC 4180 like OpenCSV's defaults: fields may be
+ * quoted, {@code ""} escapes a quote, and quoted fields may span lines.
+ * <p>
+ * Chunks are found in one parallel pass: each slice of the file counts its
+ * quotes and notes its first newline after an even and after an odd number of
+ * them. A prefix sum of the counts tells whether a slice starts inside quotes,
+ * and so which of the two newlines is the real record boundary.
+ */
+public final class MappedCsvReader {
+
+    // Slices per thread, so an uneven slice does not hold up the whole read
+    private static final int SLICES_PER_THREAD = 4;
+    // Largest slice; also keeps each mapped chunk far below the 2 GB mapping limit
+    private static final long MAX_SLICE_BYTES = 64L * 1024 * 1024;
+
+    private MappedCsvReader() {
+    }
+
+    /**
+     * Receives the records of one chunk, in file order within the chunk
+     *
+     * @param <T> per-chunk state, e.g. the list the chunk's rows go into
+     */
+    @FunctionalInterface
+    public interface RecordHandler<T> {
+
+        void record(T chunk, Record record) throws Exception;
+    }
+
+    /**
+     * Read every record of a file
+     *
+     * @param skipHeader leave out the first record of the file
+     * @param ordered return the chunk states in file order; otherwise in the
+     * order the chunks finish, which lets callers start on early chunks sooner
+     * @return one state per chunk
+     */
+    public static <T> List<T> read(Path file, int parallelism, boolean skipHeader, boolean ordered,
+            Supplier<T> chunkState, RecordHandler<T> handler) throws Exception {
+        int threads = Math.max(1, parallelism);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int slices = (int) Math.max(1, Math.min(Math.max((long) threads * SLICES_PER_THREAD,
+                    (size + MAX_SLICE_BYTES - 1) / MAX_SLICE_BYTES), Math.max(1, size / 4096)));
+            long[] bounds = chunkBounds(channel, 0, size, slices, pool);
+            int chunks = bounds.length - 1;
+            List<Future<T>> futures = new ArrayList<>(chunks);
+            ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(pool);
+            for (int i = 0; i < chunks; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                boolean header = skipHeader && i == 0;
+                futures.add(completion.submit(() -> parseChunk(channel, start, end, header, chunkState.get(), handler)));
+            }
+            List<T> result = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                result.add(ordered ? futures.get(i).get() : completion.take().get());
+            }
+            return result;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Cut a file into about {@code parts} byte ranges that each hold whole
+     * records, e.g. to hand them to separate workers with
+     * {@link #readRange}. Small files yield fewer ranges.
+     *
+     * @return start offsets of the ranges followed by the file size
+     */
+    public static long[] split(Path file, int parts) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parts));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int slices = (int) Math.max(1, Math.min(parts, Math.max(1, size / 4096)));
+            return chunkBounds(channel, 0, size, slices, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Read the records of one range returned by {@link #split} on the
+     * calling thread, mapping it a piece at a time
+     *
+     * @param skipHeader leave out the first record of the range
+     */
+    public static <T> T readRange(Path file, long start, long end, boolean skipHeader, T state, RecordHandler<T> handler)
+            throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int slices = (int) Math.max(1, (end - start + MAX_SLICE_BYTES - 1) / MAX_SLICE_BYTES);
+            long[] bounds = slices == 1 ? new long[] {start, end}
+                    : chunkBounds(channel, start, end, slices, ForkJoinPool.commonPool());
+            for (int i = 0; i < bounds.length - 1; i++) {
+                parseChunk(channel, bounds[i], bounds[i + 1], skipHeader && i == 0, state, handler);
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Start offsets of the chunks of {@code [start, end)} plus {@code end};
+     * every chunk but the last ends right after a record's newline.
+     * {@code start} must be the start of a record.
+     */
+    private static long[] chunkBounds(FileChannel channel, long start, long end, int slices, ForkJoinPool pool)
+            throws Exception {
+        long size = end - start;
+        List<Future<SliceScan>> scans = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            long from = start + size * i / slices;
+            long to = start + size * (i + 1) / slices;
+            scans.add(pool.submit(() -> SliceScan.of(channel, from, to)));
+        }
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        long quotes = 0;
+        for (int i = 0; i < slices; i++) {
+            SliceScan scan = scans.get(i).get();
+            // A slice starts inside a quoted field when an odd number of quotes came before it
+            long newline = quotes % 2 == 0 ? scan.firstNewlineEven : scan.firstNewlineOdd;
+            if (i > 0 && newline >= 0 && newline + 1 < end && newline + 1 > bounds.get(bounds.size() - 1)) {
+                bounds.add(newline + 1);
+            }
+            quotes += scan.quotes;
+        }
+        bounds.add(end);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static <T> T parseChunk(FileChannel channel, long start, long end, boolean skipHeader, T state,
+            RecordHandler<T> handler) throws Exception {
+        if (end <= start) {
+            return state;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        Record record = new Record(buffer);
+        boolean first = true;
+        while (record.next()) {
+            if (first && skipHeader) {
+                first = false;
+                continue;
+            }
+            first = false;
+            handler.record(state, record);
+        }
+        return state;
+    }
+
+    /**
+     * Quote count and candidate record boundaries of one slice of the file
+     */
+    private record SliceScan(long quotes, long firstNewlineEven, long firstNewlineOdd) {
+
+        static SliceScan of(FileChannel channel, long from, long to) throws IOException {
+            if (to <= from) {
+                return new SliceScan(0, -1, -1);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            long quotes = 0;
+            long even = -1;
+            long odd = -1;
+            int limit = buffer.limit();
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quotes++;
+                } else if (b == '\n') {
+                    if ((quotes & 1) == 0) {
+                        if (even < 0) {
+                            even = from + i;
+                        }
+                    } else if (odd < 0) {
+                        odd = from + i;
+                    }
+                    if (even >= 0 && odd >= 0) {
+                        // Both found; keep counting quotes only
+                        for (i++; i < limit; i++) {
+                            if (buffer.get(i) == '"') {
+                                quotes++;
+                            }
+                        }
+                    }
+                }
+            }
+            return new SliceScan(quotes, even, odd);
+        }
+    }
+
+    /**
+     * The current record of a chunk. Only valid inside
+     * {@link RecordHandler#record}; copy out what you need to keep.
+     */
+    public static final class Record {
+
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private int position;
+
+        private int fields;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private boolean[] escaped = new boolean[16];
+        private byte[] scratch = new byte[256];
+
+        // Recently seen values of dictionary() fields, compared by bytes
+        private final byte[][] dictionaryBytes = new byte[64][];
+        private final String[] dictionaryValues = new String[64];
+        private int dictionarySize;
+
+        Record(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        public int size() {
+            return fields;
+        }
+
+        /**
+         * Field value as a string, unquoted
+         */
+        public String string(int field) {
+            int length = copy(field);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Like {@link #string(int)}, but repeated values share one String
+         * instance, for low-cardinality columns such as a class name
+         */
+        public String dictionary(int field) {
+            int length = copy(field);
+            for (int i = 0; i < dictionarySize; i++) {
+                if (Arrays.equals(dictionaryBytes[i], 0, dictionaryBytes[i].length, scratch, 0, length)) {
+                    return dictionaryValues[i];
+                }
+            }
+            String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            if (dictionarySize < dictionaryValues.length) {
+                dictionaryBytes[dictionarySize] = Arrays.copyOf(scratch, length);
+                dictionaryValues[dictionarySize++] = value;
+            }
+            return value;
+        }
+
+        public boolean isEmpty(int field) {
+            return ends[field] == starts[field];
+        }
+
+        /**
+         * Field as an int, or {@code missing} if it is not an integer that
+         * {@link Integer#parseInt} accepts
+         */
+        public int integer(int field, int missing) {
+            int i = starts[field];
+            int end = ends[field];
+            if (i == end || escaped[field]) {
+                return missing;
+            }
+            byte sign = buffer.get(i);
+            boolean negative = sign == '-';
+            if ((negative || sign == '+') && ++i == end) {
+                return missing;
+            }
+            if (end - i > 9) {
+                // Might overflow, or be padded with zeros; leave the edge cases to the JDK
+                try {
+                    return Integer.parseInt(string(field));
+                } catch (NumberFormatException e) {
+                    return missing;
+                }
+            }
+            int value = 0;
+            for (; i < end; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return missing;
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * ISO {@code yyyy-MM-dd} field as an epoch day, or {@code missing} if
+         * it is not a valid date in that form
+         */
+        public long epochDay(int field, long missing) {
+            int i = starts[field];
+            if (ends[field] - i != 10 || buffer.get(i + 4) != '-' || buffer.get(i + 7) != '-') {
+                return missing;
+            }
+            int year = digits(i, 4);
+            int month = digits(i + 5, 2);
+            int day = digits(i + 8, 2);
+            if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+                return missing;
+            }
+            return epochDay(year, month, day);
+        }
+
+        /**
+         * Advance to the next record
+         *
+         * @return false at the end of the chunk
+         */
+        boolean next() throws IOException {
+            if (position >= limit) {
+                return false;
+            }
+            fields = 0;
+            int i = position;
+            while (true) {
+                if (fields == starts.length) {
+                    starts = Arrays.copyOf(starts, fields * 2);
+                    ends = Arrays.copyOf(ends, fields * 2);
+                    escaped = Arrays.copyOf(escaped, fields * 2);
+                }
+                boolean hasEscapes = false;
+                int start;
+                int end;
+                if (i < limit && buffer.get(i) == '"') {
+                    start = ++i;
+                    while (true) {
+                        if (i >= limit) {
+                            throw new IOException("Unterminated quoted field");
+                        }
+                        if (buffer.get(i) == '"') {
+                            if (i + 1 < limit && buffer.get(i + 1) == '"') {
+                                hasEscapes = true;
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    end = i++;
+                    // Anything between the closing quote and the separator is ignored
+                    while (i < limit && buffer.get(i) != ',' && buffer.get(i) != '\n') {
+                        i++;
+                    }
+                } else {
+                    start = i;
+                    while (i < limit && buffer.get(i) != ',' && buffer.get(i) != '\n') {
+                        i++;
+                    }
+                    end = i;
+                    if (end > start && (i >= limit || buffer.get(i) == '\n') && buffer.get(end - 1) == '\r') {
+                        end--;
+                    }
+                }
+                starts[fields] = start;
+                ends[fields] = end;
+                escaped[fields] = hasEscapes;
+                fields++;
+                if (i >= limit || buffer.get(i) == '\n') {
+                    position = i + 1;
+                    return true;
+                }
+                i++; // separator
+            }
+        }
+
+        /**
+         * Copy a field's bytes into the scratch buffer, unescaping quotes
+         *
+         * @return number of bytes
+         */
+        private int copy(int field) {
+            int start = starts[field];
+            int length = ends[field] - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(start, scratch, 0, length);
+            if (!escaped[field]) {
+                return length;
+            }
+            int out = 0;
+            for (int i = 0; i < length; i++, out++) {
+                scratch[out] = scratch[i];
+                if (scratch[i] == '"') {
+                    i++; // skip the second quote of the pair
+                }
+            }
+            return out;
+        }
+
+        private int digits(int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private static int lengthOfMonth(int year, int month) {
+            return switch (month) {
+                case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+                case 4, 6, 9, 11 -> 30;
+                default -> 31;
+            };
+        }
+
+        // Same arithmetic as LocalDate.toEpochDay
+        private static long epochDay(int year, int month, int day) {
+            long y = year;
+            long total = 365 * y;
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+            total += (367 * month - 362) / 12;
+            total += day - 1;
+            if (month > 2) {
+                total--;
+                if (!(year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+                    total--;
+                }
+            }
+            return total - 719528;
+        }
+    }
+}
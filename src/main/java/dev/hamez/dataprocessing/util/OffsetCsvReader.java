@@ -0,0 +1,102 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.opencsv.CSVParser;
+
+/**
+ * CSV reader that knows the byte offset of the record boundary after the last
+ * record it returned, so a later reader can start exactly there. Parsing is
+ * OpenCSV's default, including quoted fields that span lines.
+ */
+public class OffsetCsvReader implements Closeable {
+
+    private final InputStream in;
+    private final CSVParser parser = new CSVParser();
+    private byte[] line = new byte[256];
+    private long offset;
+
+    /**
+     * @param offset where to start, 0 or a value returned by {@link #offset()}
+     */
+    public OffsetCsvReader(Path file, long offset) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+        this.offset = offset;
+    }
+
+    /**
+     * The next record, or null at the end of the file
+     */
+    public String[] readNext() throws IOException {
+        String[] record = null;
+        do {
+            String text = readLine();
+            if (text == null) {
+                if (parser.isPending()) {
+                    throw new IOException("Unterminated quoted field at end of file");
+                }
+                return record;
+            }
+            String[] tokens = parser.parseLineMulti(text);
+            if (record == null) {
+                record = tokens;
+            } else {
+                // A field spanning lines is returned with the tokens of its last line
+                String[] joined = Arrays.copyOf(record, record.length + tokens.length);
+                System.arraycopy(tokens, 0, joined, record.length, tokens.length);
+                record = joined;
+            }
+        } while (parser.isPending());
+        return record;
+    }
+
+    /**
+     * Byte offset just past the last record returned
+     */
+    public long offset() {
+        return offset;
+    }
+
+    private String readLine() throws IOException {
+        int length = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            offset++;
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = (byte) b;
+        }
+        if (b == -1 && length == 0) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
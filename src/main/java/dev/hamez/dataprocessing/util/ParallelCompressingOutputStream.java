@@ -0,0 +1,159 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Compresses in fixed-size blocks on a pool of threads, like pigz. Every
+ * block becomes a complete gzip member or zstd frame; decoders, including
+ * {@link java.util.zip.GZIPInputStream}, gunzip and zstd, read the sequence as
+ * one stream. Blocks are written in order, and at most {@code maxInFlight}
+ * are in flight, so memory stays at a few blocks whatever the input size.
+ * Blocks compress independently, which costs a little ratio compared to one
+ * stream.
+ * <p>
+ * The pool is the caller's and may be shared by many streams; a stream only
+ * tracks its own blocks, and cancels those still pending when it is closed
+ * after a failure.
+ * <p>
+ * {@link #flush()} writes out the blocks that are complete; bytes of the
+ * current block wait until it fills up or the stream is closed.
+ */
+public final class ParallelCompressingOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final Compression compression;
+    private final int level;
+    private final int blockSize;
+    private final int maxInFlight;
+    private final ExecutorService pool;
+    private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private byte[] block;
+    private int length;
+    private boolean written;
+    private boolean closed;
+
+    /**
+     * @param level gzip 1-9 or zstd 1-22
+     * @param pool runs the compression of blocks; null compresses on the
+     * writing thread
+     * @param maxInFlight blocks submitted but not yet written, e.g. twice the
+     * pool's threads
+     */
+    public ParallelCompressingOutputStream(OutputStream out, Compression compression, int level, int blockSize,
+            ExecutorService pool, int maxInFlight) {
+        if (compression == Compression.NONE) {
+            throw new IllegalArgumentException("No compression to apply");
+        }
+        this.out = out;
+        this.compression = compression;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize];
+        this.pool = pool;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (length == blockSize) {
+            submit();
+        }
+        block[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (length == blockSize) {
+                submit();
+            }
+            int n = Math.min(len, blockSize - length);
+            System.arraycopy(b, off, block, length, n);
+            length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        while (!inFlight.isEmpty()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // An empty input still gets one (empty) member or frame, so the output is a valid file
+            if (length > 0 || !written) {
+                submit();
+            }
+            while (!inFlight.isEmpty()) {
+                writeNext();
+            }
+        } finally {
+            // Left over only after a failure; free the pool of work nobody will write
+            for (Future<byte[]> pending : inFlight) {
+                pending.cancel(true);
+            }
+            inFlight.clear();
+            out.close();
+        }
+    }
+
+    private void submit() throws IOException {
+        byte[] data = block;
+        int size = length;
+        block = new byte[blockSize];
+        length = 0;
+        written = true;
+        if (pool == null) {
+            out.write(compress(data, size));
+            return;
+        }
+        if (inFlight.size() >= maxInFlight) {
+            writeNext();
+        }
+        inFlight.add(pool.submit(() -> compress(data, size)));
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            out.write(inFlight.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Compression failed", e.getCause());
+        }
+    }
+
+    private byte[] compress(byte[] data, int size) throws IOException {
+        if (compression == Compression.ZSTD) {
+            return Zstd.compress(size == data.length ? data : Arrays.copyOf(data, size), level);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(size / 3 + 64);
+        try (GZIPOutputStream gzip = new LevelGzipOutputStream(buffer, level)) {
+            gzip.write(data, 0, size);
+        }
+        return buffer.toByteArray();
+    }
+}
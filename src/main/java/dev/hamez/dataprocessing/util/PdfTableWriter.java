@@ -0,0 +1,345 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+/**
+ * Writes a paginated text table (Letter, Helvetica 10pt) as a PDF for
+ * high-volume exports.
+ * <p>
+ * Rows are buffered into chunks of pages; each chunk's content streams are
+ * laid out and deflated on a worker pool while the caller keeps adding rows,
+ * and the finished pages are appended to the document in order. Text is
+ * measured with per-glyph width tables, so fitting a cell is a sum over its
+ * characters. The document keeps page contents in PDFBox scratch storage
+ * according to the given {@link MemoryUsageSetting}, spilling to temp files
+ * beyond the memory limit. {@link #finish()} saves it to the output stream;
+ * {@link #close()} removes the scratch files.
+ */
+public class PdfTableWriter implements Closeable {
+
+    private static final float FONT_SIZE = 10f;
+    private static final float LEADING = 1.2f * FONT_SIZE;
+    private static final float MARGIN = 50f;
+    private static final float HEADER_HEIGHT = LEADING * 1.5f;
+    private static final String ELLIPSIS = "...";
+
+    // Pages laid out per task
+    private static final int PAGES_PER_CHUNK = 16;
+
+    private final OutputStream out;
+    private final PDDocument doc;
+    private final PDResources resources = new PDResources();
+    private final String[] headers;
+    private final float[] colWidths;
+    private final float tableWidth;
+    private final int rowsPerPage;
+    private final GlyphWidths headerFont;
+    private final GlyphWidths rowFont;
+
+    private final ExecutorService pool;
+    private final int window;
+    private final Deque<Future<List<byte[]>>> pending = new ArrayDeque<>();
+    private List<String[]> chunk;
+    private long rowCount;
+
+    /**
+     * @param parallelism layout threads; 1 lays out pages on the calling thread
+     * @param memory where the document keeps page contents until it is saved
+     */
+    public PdfTableWriter(OutputStream out, String[] headers, float[] colWidths, int parallelism, MemoryUsageSetting memory) {
+        this.out = out;
+        this.doc = new PDDocument(memory);
+        this.headers = headers.clone();
+        this.colWidths = colWidths.clone();
+        float width = 0;
+        for (float w : colWidths) {
+            width += w;
+        }
+        this.tableWidth = width;
+        this.headerFont = new GlyphWidths(PDType1Font.HELVETICA_BOLD, resources.add(PDType1Font.HELVETICA_BOLD));
+        this.rowFont = new GlyphWidths(PDType1Font.HELVETICA, resources.add(PDType1Font.HELVETICA));
+
+        float usableHeight = PDRectangle.LETTER.getHeight() - 2 * MARGIN;
+        this.rowsPerPage = Math.max(1, (int) ((usableHeight - HEADER_HEIGHT) / LEADING));
+        this.chunk = new ArrayList<>(rowsPerPage * PAGES_PER_CHUNK);
+
+        int threads = Math.max(1, Math.min(parallelism, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = threads > 1
+                ? Executors.newFixedThreadPool(threads, task -> new Thread(task, "pdf-layout-" + threadCount.incrementAndGet()))
+                : null;
+        this.window = threads * 2;
+    }
+
+    /**
+     * Add a table row; null cells are left empty. A row with a single cell
+     * spans the whole table width.
+     */
+    public void addRow(String... cells) throws IOException {
+        chunk.add(cells);
+        rowCount++;
+        if (chunk.size() == rowsPerPage * PAGES_PER_CHUNK) {
+            submitChunk();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Lay out the remaining rows and save the document to the output stream,
+     * which is flushed, not closed
+     */
+    public void finish() throws IOException {
+        if (!chunk.isEmpty()) {
+            submitChunk();
+        }
+        while (!pending.isEmpty()) {
+            appendPages(pending.removeFirst());
+        }
+        // PDDocument.save closes the stream it writes to; the caller owns this one
+        doc.save(new BufferedOutputStream(CloseShieldOutputStream.wrap(out), 64 * 1024));
+        out.flush();
+    }
+
+    /**
+     * Release the document's scratch storage and the layout threads. Without
+     * a prior {@link #finish()} nothing is written.
+     */
+    @Override
+    public void close() throws IOException {
+        pending.forEach(f -> f.cancel(true));
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        doc.close();
+    }
+
+    private void submitChunk() throws IOException {
+        List<String[]> rows = chunk;
+        chunk = new ArrayList<>(rowsPerPage * PAGES_PER_CHUNK);
+        pending.addLast(pool != null
+                ? pool.submit(() -> layoutChunk(rows))
+                : CompletableFuture.completedFuture(layoutChunk(rows)));
+        while (pending.size() > window) {
+            appendPages(pending.removeFirst());
+        }
+    }
+
+    private void appendPages(Future<List<byte[]>> chunkPages) throws IOException {
+        List<byte[]> pages;
+        try {
+            pages = chunkPages.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while laying out PDF pages");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to lay out PDF pages", e.getCause());
+        }
+        for (byte[] content : pages) {
+            // Content is already deflated, so store it as-is
+            COSStream stream = doc.getDocument().createCOSStream();
+            try (OutputStream raw = stream.createRawOutputStream()) {
+                raw.write(content);
+            }
+            stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            page.setResources(resources);
+            page.setContents(new PDStream(stream));
+            doc.addPage(page);
+        }
+    }
+
+    /**
+     * Deflated content streams for the pages holding {@code rows}
+     */
+    private List<byte[]> layoutChunk(List<String[]> rows) throws IOException {
+        List<byte[]> pages = new ArrayList<>(PAGES_PER_CHUNK);
+        StringBuilder sb = new StringBuilder(8192);
+        for (int from = 0; from < rows.size(); from += rowsPerPage) {
+            sb.setLength(0);
+            float y = PDRectangle.LETTER.getHeight() - MARGIN;
+            appendRow(sb, headerFont, headers, y);
+            y -= HEADER_HEIGHT;
+            for (int r = from; r < Math.min(rows.size(), from + rowsPerPage); r++) {
+                appendRow(sb, rowFont, rows.get(r), y);
+                y -= LEADING;
+            }
+            pages.add(deflate(sb));
+        }
+        return pages;
+    }
+
+    private void appendRow(StringBuilder sb, GlyphWidths font, String[] cells, float y) {
+        sb.append('/').append(font.resourceName).append(' ');
+        appendNumber(sb, FONT_SIZE);
+        sb.append(" Tf\nBT\n");
+        appendNumber(sb, MARGIN);
+        sb.append(' ');
+        appendNumber(sb, y);
+        sb.append(" Td\n");
+        if (cells.length == 1 && colWidths.length > 1) {
+            sb.append('(');
+            font.appendFitted(sb, cells[0] != null ? cells[0] : "", tableWidth);
+            sb.append(") Tj\nET\n");
+            return;
+        }
+        for (int i = 0; i < colWidths.length; i++) {
+            String text = i < cells.length && cells[i] != null ? cells[i] : "";
+            sb.append('(');
+            font.appendFitted(sb, text, colWidths[i]);
+            sb.append(") Tj ");
+            appendNumber(sb, colWidths[i]);
+            sb.append(" 0 Td\n");
+        }
+        sb.append("ET\n");
+    }
+
+    private static byte[] deflate(StringBuilder content) throws IOException {
+        // Chars are single-byte font codes at this point
+        byte[] raw = content.toString().getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(raw.length / 3);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(bytes)) {
+            deflater.write(raw);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void appendNumber(StringBuilder sb, float value) {
+        if (value == (int) value) {
+            sb.append((int) value);
+        } else {
+            sb.append(Math.round(value * 100) / 100f);
+        }
+    }
+
+    /**
+     * Font code and advance width (in text space units at {@link #FONT_SIZE})
+     * per character. Latin-1 is tabulated up front; other characters are
+     * looked up once and remembered. Characters the font cannot encode are
+     * shown as '?'.
+     */
+    private static final class GlyphWidths {
+
+        private static final int UNSUPPORTED = -1;
+
+        private final PDFont font;
+        private final String resourceName;
+        private final int[] latin1Codes = new int[256];
+        private final float[] latin1Widths = new float[256];
+        private final Map<Character, float[]> others = new ConcurrentHashMap<>();
+        private final int fallbackCode;
+        private final float fallbackWidth;
+        private final float ellipsisWidth;
+
+        GlyphWidths(PDFont font, COSName resourceName) {
+            this.font = font;
+            this.resourceName = resourceName.getName();
+            for (char c = 0; c < 256; c++) {
+                float[] glyph = lookup(c);
+                latin1Codes[c] = (int) glyph[0];
+                latin1Widths[c] = glyph[1];
+            }
+            this.fallbackCode = latin1Codes['?'];
+            this.fallbackWidth = latin1Widths['?'];
+            this.ellipsisWidth = 3 * latin1Widths['.'];
+        }
+
+        private float[] lookup(char c) {
+            try {
+                byte[] code = font.encode(String.valueOf(c));
+                if (code.length == 1) {
+                    int value = code[0] & 0xff;
+                    return new float[]{value, font.getWidth(value) / 1000f * FONT_SIZE};
+                }
+            } catch (IllegalArgumentException | IOException e) {
+                // Not in the font's encoding
+            }
+            return new float[]{UNSUPPORTED, 0};
+        }
+
+        private int code(char c) {
+            int code = c < 256 ? latin1Codes[c] : (int) others.computeIfAbsent(c, this::lookup)[0];
+            return code == UNSUPPORTED ? fallbackCode : code;
+        }
+
+        private float width(char c) {
+            if (c < 256) {
+                return latin1Codes[c] == UNSUPPORTED ? fallbackWidth : latin1Widths[c];
+            }
+            float[] glyph = others.computeIfAbsent(c, this::lookup);
+            return glyph[0] == UNSUPPORTED ? fallbackWidth : glyph[1];
+        }
+
+        /**
+         * Append {@code text} as escaped font codes, truncated with an
+         * ellipsis if it is wider than {@code maxWidth} points
+         */
+        void appendFitted(StringBuilder sb, String text, float maxWidth) {
+            int len = text.length();
+            float total = 0;
+            for (int i = 0; i < len; i++) {
+                total += width(text.charAt(i));
+            }
+            if (total <= maxWidth) {
+                appendCodes(sb, text, len);
+                return;
+            }
+            // Longest prefix that still fits with the ellipsis
+            float budget = maxWidth - ellipsisWidth;
+            int fit = 0;
+            float used = 0;
+            while (fit < len && used + width(text.charAt(fit)) <= budget) {
+                used += width(text.charAt(fit));
+                fit++;
+            }
+            appendCodes(sb, text, fit);
+            sb.append(ELLIPSIS);
+        }
+
+        private void appendCodes(StringBuilder sb, String text, int count) {
+            for (int i = 0; i < count; i++) {
+                char code = (char) code(text.charAt(i));
+                switch (code) {
+                    case '(', ')', '\\' -> sb.append('\\').append(code);
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    default -> sb.append(code);
+                }
+            }
+        }
+    }
+}
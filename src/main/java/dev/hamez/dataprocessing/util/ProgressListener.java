@@ -0,0 +1,15 @@
+package dev.hamez.dataprocessing.util;
+
+/**
+ * Callback for long-running operations to report how many rows they have
+ * handled so far. Implementations may throw
+ * {@link java.util.concurrent.CancellationException} to stop the operation.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    ProgressListener NONE = rowsDone -> {
+    };
+
+    void onProgress(long rowsDone);
+}
@@ -1,35 +1,187 @@
 package dev.hamez.dataprocessing.util;
 
-import java.security.SecureRandom;
 import java.time.LocalDate;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
+/**
+ * Random values for synthetic student data. Backed by a fast,
+ * non-cryptographic {@link RandomGenerator} ({@link SplittableRandom} unless
+ * another algorithm is requested), optionally seeded so runs are reproducible.
+ * <p>
+ * Instances are not thread-safe: give each worker its own via {@link #split()}
+ * (deterministic for a seeded root) or use the per-thread {@link #current()}.
+ * The static helpers use the per-thread instance.
+ */
 public class RandomDataGenerator {
 
-    private static final SecureRandom RAND = new SecureRandom();
-    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz".toCharArray();
 
-    public static String randomAlphaString(int minLen, int maxLen) {
-        int len = RAND.nextInt(maxLen - minLen + 1) + minLen;
-        StringBuilder sb = new StringBuilder(len);
-        for (int i = 0; i < len; i++) {
-            sb.append(ALPHABET.charAt(RAND.nextInt(ALPHABET.length())));
+    private static final ThreadLocal<RandomDataGenerator> PER_THREAD
+            = ThreadLocal.withInitial(() -> new RandomDataGenerator(new SplittableRandom()));
+
+    private final RandomGenerator source;
+
+    /**
+     * @throws IllegalArgumentException if the source can neither split nor
+     * jump, so {@link #split()} could not serve it
+     */
+    public RandomDataGenerator(RandomGenerator source) {
+        if (!(source instanceof RandomGenerator.SplittableGenerator) && !(source instanceof RandomGenerator.JumpableGenerator)) {
+            throw new IllegalArgumentException(source.getClass().getName() + " can neither split nor jump");
+        }
+        this.source = source;
+    }
+
+    /**
+     * Unseeded generator backed by {@link SplittableRandom}
+     */
+    public static RandomDataGenerator create() {
+        return new RandomDataGenerator(new SplittableRandom());
+    }
+
+    /**
+     * Generator backed by {@link SplittableRandom}; the same seed yields the
+     * same sequence, including for generators obtained via {@link #split()}
+     */
+    public static RandomDataGenerator seeded(long seed) {
+        return new RandomDataGenerator(new SplittableRandom(seed));
+    }
+
+    /**
+     * Generator for a named JDK algorithm, e.g. {@code "Xoshiro256PlusPlus"}
+     * or {@code "L64X128MixRandom"}
+     *
+     * @param seed seed for reproducible output, or null
+     */
+    public static RandomDataGenerator of(String algorithm, Long seed) {
+        return of(factory(algorithm), seed);
+    }
+
+    /**
+     * Generator from a factory resolved by {@link #factory(String)}
+     *
+     * @param seed seed for reproducible output, or null
+     */
+    public static RandomDataGenerator of(RandomGeneratorFactory<RandomGenerator> factory, Long seed) {
+        return new RandomDataGenerator(seed == null ? factory.create() : factory.create(seed));
+    }
+
+    /**
+     * Factory for a named JDK algorithm, checked once so a bad name fails at
+     * startup rather than on every request
+     *
+     * @throws IllegalArgumentException if the algorithm is unknown or can
+     * neither split nor jump, as {@link #split()} needs
+     */
+    public static RandomGeneratorFactory<RandomGenerator> factory(String algorithm) {
+        RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.of(algorithm);
+        if (!factory.isSplittable() && !factory.isJumpable()) {
+            throw new IllegalArgumentException(algorithm + " can neither split nor jump; choose e.g. SplittableRandom");
+        }
+        return factory;
+    }
+
+    /**
+     * The calling thread's generator
+     */
+    public static RandomDataGenerator current() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * A new, statistically independent generator for use on another thread
+     */
+    public RandomDataGenerator split() {
+        if (source instanceof RandomGenerator.SplittableGenerator splittable) {
+            return new RandomDataGenerator(splittable.split());
+        }
+        // The constructor admits nothing else
+        return new RandomDataGenerator(((RandomGenerator.JumpableGenerator) source).copyAndJump());
+    }
+
+    public int nextInt(int minInclusive, int maxInclusive) {
+        return source.nextInt(minInclusive, maxInclusive + 1);
+    }
+
+    public long nextEpochDay(long startEpochDay, long endEpochDay) {
+        return source.nextLong(startEpochDay, endEpochDay + 1);
+    }
+
+    public LocalDate nextDateBetween(LocalDate startInclusive, LocalDate endInclusive) {
+        return LocalDate.ofEpochDay(nextEpochDay(startInclusive.toEpochDay(), endInclusive.toEpochDay()));
+    }
+
+    /**
+     * Random lowercase letters with the first one capitalized
+     */
+    public String nextAlphaString(int minLen, int maxLen) {
+        char[] buf = new char[maxLen];
+        int len = nextAlpha(buf, 0, minLen, maxLen);
+        return new String(buf, 0, len);
+    }
+
+    /**
+     * Write a random capitalized word of {@code minLen..maxLen} letters into
+     * {@code buf} at {@code off}
+     *
+     * @return number of chars written
+     */
+    public int nextAlpha(char[] buf, int off, int minLen, int maxLen) {
+        int len = source.nextInt(minLen, maxLen + 1);
+        buf[off] = (char) (ALPHABET[source.nextInt(ALPHABET.length)] - ('a' - 'A'));
+        for (int i = 1; i < len; i++) {
+            buf[off + i] = ALPHABET[source.nextInt(ALPHABET.length)];
         }
-        // capitalize first letter
-        if (sb.length() > 0) {
-            sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return len;
+    }
+
+    // ---- Bulk APIs ----
+    /**
+     * Fill {@code dst[off..off+len)} with ints in {@code [min, max]}
+     */
+    public void fillInts(int[] dst, int off, int len, int minInclusive, int maxInclusive) {
+        int bound = maxInclusive + 1;
+        for (int i = off; i < off + len; i++) {
+            dst[i] = source.nextInt(minInclusive, bound);
+        }
+    }
+
+    /**
+     * Fill {@code dst[off..off+len)} with epoch days between the two dates
+     */
+    public void fillEpochDays(int[] dst, int off, int len, LocalDate startInclusive, LocalDate endInclusive) {
+        fillInts(dst, off, len, (int) startInclusive.toEpochDay(), (int) endInclusive.toEpochDay());
+    }
+
+    /**
+     * Write {@code count} random words back to back into {@code buf}, storing
+     * the end offset of word {@code i} in {@code ends[i]} (word {@code i}
+     * starts at {@code ends[i - 1]}, or 0). {@code buf} must hold at least
+     * {@code count * maxLen} chars.
+     *
+     * @return total chars written
+     */
+    public int fillAlpha(char[] buf, int[] ends, int count, int minLen, int maxLen) {
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            pos += nextAlpha(buf, pos, minLen, maxLen);
+            ends[i] = pos;
         }
-        return sb.toString();
+        return pos;
+    }
+
+    // ---- Static helpers on the per-thread generator ----
+    public static String randomAlphaString(int minLen, int maxLen) {
+        return current().nextAlphaString(minLen, maxLen);
     }
 
     public static LocalDate randomDateBetween(LocalDate startInclusive, LocalDate endInclusive) {
-        long startEpochDay = startInclusive.toEpochDay();
-        long endEpochDay = endInclusive.toEpochDay();
-        long randomDay = ThreadLocalRandom.current().longs(startEpochDay, endEpochDay + 1).findFirst().getAsLong();
-        return LocalDate.ofEpochDay(randomDay);
+        return current().nextDateBetween(startInclusive, endInclusive);
     }
 
     public static int randomInt(int minInclusive, int maxInclusive) {
-        return RAND.nextInt(maxInclusive - minInclusive + 1) + minInclusive;
+        return current().nextInt(minInclusive, maxInclusive);
     }
 }
@@ -1,7 +1,9 @@
 package dev.hamez.dataprocessing.util;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -10,8 +12,9 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.xssf.eventusermodel.XSSFReader;
-import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.model.SharedStrings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.Attributes;
@@ -38,6 +41,61 @@ public class StreamingExcelReader {
         void processRow(int rowNum, List<String> cells) throws Exception;
     }
 
+    /**
+     * Callback receiving each row as a {@link RowView}. The view and the
+     * {@link CharSequence}s it hands out are reused for the next row, so they
+     * must not be retained after {@code processRow} returns; use
+     * {@link RowView#getString(int)} or {@link RowView#copy()} to keep values.
+     */
+    @FunctionalInterface
+    public interface RowViewProcessor {
+
+        void processRow(int rowNum, RowView row) throws Exception;
+    }
+
+    /**
+     * Index-addressable, read-only view of the current row. Cells skipped in
+     * the sheet read as empty.
+     */
+    public interface RowView {
+
+        int size();
+
+        /**
+         * Cell text as a reused, zero-copy sequence; only valid during the
+         * current callback
+         */
+        CharSequence get(int index);
+
+        /**
+         * Cell text as a new String
+         */
+        default String getString(int index) {
+            return get(index).toString();
+        }
+
+        /**
+         * Copy the cell text into {@code dst} at {@code dstBegin}
+         */
+        default void getChars(int index, char[] dst, int dstBegin) {
+            CharSequence value = get(index);
+            for (int i = 0; i < value.length(); i++) {
+                dst[dstBegin + i] = value.charAt(i);
+            }
+        }
+
+        /**
+         * Copy of the row as a new mutable list of Strings
+         */
+        default List<String> copy() {
+            List<String> cells = new ArrayList<>(size());
+            for (int i = 0; i < size(); i++) {
+                cells.add(getString(i));
+            }
+            return cells;
+        }
+    }
+
     /**
      * Read Excel file using streaming SAX parser
      *
@@ -47,13 +105,26 @@ public class StreamingExcelReader {
      */
     public static void readExcelStreaming(InputStream inputStream, RowProcessor rowProcessor)
             throws Exception {
+        readExcelRows(inputStream, (rowNum, row) -> rowProcessor.processRow(rowNum, row.copy()));
+    }
+
+    /**
+     * Read the first sheet of an Excel file, passing each row as a reusable
+     * view without allocating per cell
+     *
+     * @param inputStream Excel file input stream
+     * @param rowProcessor Callback to process each row
+     * @throws Exception if processing fails
+     */
+    public static void readExcelRows(InputStream inputStream, RowViewProcessor rowProcessor)
+            throws Exception {
 
         logger.info("Starting streaming Excel read...");
         long startTime = System.currentTimeMillis();
 
         try (OPCPackage opcPackage = OPCPackage.open(inputStream)) {
             XSSFReader reader = new XSSFReader(opcPackage);
-            SharedStringsTable sst = (SharedStringsTable) reader.getSharedStringsTable();
+            SharedStrings sst = reader.getSharedStringsTable();
             XMLReader parser = createXMLReader(sst, rowProcessor);
 
             // Process the first sheet
@@ -70,7 +141,47 @@ public class StreamingExcelReader {
         logger.info("Completed streaming Excel read in {} ms", duration);
     }
 
-    private static XMLReader createXMLReader(SharedStringsTable sst, RowProcessor rowProcessor)
+    /**
+     * Names of the sheets of a workbook, in workbook order
+     */
+    public static List<String> sheetNames(Path file) throws Exception {
+        try (OPCPackage opcPackage = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(opcPackage).getSheetsData();
+            List<String> names = new ArrayList<>();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Read one sheet of a workbook file. The package is opened for random
+     * access, so several threads can each read a different sheet of the same
+     * file, each with its own reader.
+     *
+     * @param sheetIndex zero-based position of the sheet in the workbook
+     */
+    public static void readSheetRows(Path file, int sheetIndex, RowViewProcessor rowProcessor) throws Exception {
+        try (OPCPackage opcPackage = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(opcPackage);
+            XMLReader parser = createXMLReader(reader.getSharedStringsTable(), rowProcessor);
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            for (int i = 0; sheets.hasNext(); i++) {
+                try (InputStream sheet = sheets.next()) {
+                    if (i == sheetIndex) {
+                        parser.parse(new InputSource(sheet));
+                        return;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Sheet " + sheetIndex + " not found in " + file.getFileName());
+        }
+    }
+
+    private static XMLReader createXMLReader(SharedStrings sst, RowViewProcessor rowProcessor)
             throws SAXException, ParserConfigurationException {
 
         SAXParserFactory factory = SAXParserFactory.newInstance();
@@ -84,23 +195,32 @@ public class StreamingExcelReader {
     }
 
     /**
-     * SAX handler for processing Excel sheet XML
+     * SAX handler for processing Excel sheet XML. Cell text of the whole row is
+     * appended into one reusable buffer; each cell is an offset range into it,
+     * exposed through reusable {@link CharSequence} slices.
      */
-    private static class SheetHandler extends DefaultHandler {
+    private static class SheetHandler extends DefaultHandler implements RowView {
 
-        private final SharedStringsTable sst;
-        private final RowProcessor rowProcessor;
-        // private final DataFormatter formatter = new DataFormatter();
+        private final SharedStrings sst;
+        private final RowViewProcessor rowProcessor;
+        private String[] sharedStringCache = new String[0];
 
-        private String lastContents;
+        private char[] buffer = new char[256];
+        private int length;
+        private int[] cellStart = new int[16];
+        private int[] cellEnd = new int[16];
+        private Slice[] slices = new Slice[0];
+        private int cellCount;
+
+        private boolean inValue;
+        private boolean hasValue;
         private boolean nextIsString;
+        private int valueStart;
         private int currentRow = 0;
         private int currentCol = 0;
-        private final List<String> currentRowData = new ArrayList<>();
-        private String cellReference;
         private int rowCount = 0;
 
-        public SheetHandler(SharedStringsTable sst, RowProcessor rowProcessor) {
+        public SheetHandler(SharedStrings sst, RowViewProcessor rowProcessor) {
             this.sst = sst;
             this.rowProcessor = rowProcessor;
         }
@@ -112,47 +232,50 @@ public class StreamingExcelReader {
             // Start of a row
             if ("row".equals(name)) {
                 String rowNum = attributes.getValue("r");
-                if (rowNum != null) {
-                    currentRow = Integer.parseInt(rowNum);
-                }
-                currentRowData.clear();
+                currentRow = rowNum != null ? Integer.parseInt(rowNum) : currentRow + 1;
+                length = 0;
+                cellCount = 0;
                 currentCol = 0;
             } // Start of a cell
             else if ("c".equals(name)) {
-                cellReference = attributes.getValue("r");
-                String cellType = attributes.getValue("t");
-                nextIsString = "s".equals(cellType);
-                lastContents = "";
+                int col = columnIndex(attributes.getValue("r"));
+                if (col >= 0) {
+                    currentCol = col;
+                }
+                nextIsString = "s".equals(attributes.getValue("t"));
+                hasValue = false;
+                valueStart = length;
+            } // Cell value, or a text run of an inline string
+            else if ("v".equals(name) || "t".equals(name)) {
+                inValue = true;
+                hasValue = true;
             }
         }
 
         @Override
         public void endElement(String uri, String localName, String name) throws SAXException {
 
-            // End of a cell value
             if ("v".equals(name) || "t".equals(name)) {
+                inValue = false;
+            } // End of a cell
+            else if ("c".equals(name)) {
+                if (!hasValue) {
+                    length = valueStart;
+                    return;
+                }
                 if (nextIsString) {
-                    try {
-                        int idx = Integer.parseInt(lastContents);
-                        lastContents = sst.getItemAt(idx).getString();
-                    } catch (NumberFormatException e) {
-                        // Keep the original value if parsing fails
-                    }
+                    resolveSharedString();
                 }
-
-                // Pad with empty strings if cells are skipped
-                int thisCol = getColumnIndex(cellReference);
-                while (currentCol < thisCol) {
-                    currentRowData.add("");
-                    currentCol++;
+                // Pad with empty cells if cells are skipped
+                while (cellCount < currentCol) {
+                    addCell(valueStart, valueStart);
                 }
-
-                currentRowData.add(lastContents);
+                addCell(valueStart, length);
                 currentCol++;
             } // End of a row
             else if ("row".equals(name)) {
                 try {
-                    rowProcessor.processRow(currentRow, currentRowData);
+                    rowProcessor.processRow(currentRow, this);
                     rowCount++;
 
                     // Log progress every 100k rows
@@ -166,25 +289,145 @@ public class StreamingExcelReader {
         }
 
         @Override
-        public void characters(char[] ch, int start, int length) throws SAXException {
-            lastContents += new String(ch, start, length);
+        public void characters(char[] ch, int start, int len) throws SAXException {
+            if (!inValue) {
+                return;
+            }
+            ensureBuffer(length + len);
+            System.arraycopy(ch, start, buffer, length, len);
+            length += len;
+        }
+
+        // ---- RowView ----
+        @Override
+        public int size() {
+            return cellCount;
+        }
+
+        @Override
+        public CharSequence get(int index) {
+            if (index < 0 || index >= cellCount) {
+                throw new IndexOutOfBoundsException("Cell " + index + " of " + cellCount);
+            }
+            return slices[index];
+        }
+
+        @Override
+        public String getString(int index) {
+            get(index);
+            return new String(buffer, cellStart[index], cellEnd[index] - cellStart[index]);
+        }
+
+        @Override
+        public void getChars(int index, char[] dst, int dstBegin) {
+            get(index);
+            System.arraycopy(buffer, cellStart[index], dst, dstBegin, cellEnd[index] - cellStart[index]);
         }
 
         /**
-         * Get column index from cell reference (e.g., "A1" -> 0, "B1" -> 1)
+         * Replace the index just read into the buffer with the shared string
+         * it refers to; left as-is if it is not a valid index
          */
-        private int getColumnIndex(String cellRef) {
-            if (cellRef == null || cellRef.isEmpty()) {
-                return 0;
+        private void resolveSharedString() {
+            int idx = 0;
+            for (int i = valueStart; i < length; i++) {
+                char c = buffer[i];
+                if (c < '0' || c > '9' || idx > (Integer.MAX_VALUE - 9) / 10) {
+                    return;
+                }
+                idx = idx * 10 + (c - '0');
+            }
+            if (length == valueStart || sst == null || idx >= sst.getUniqueCount()) {
+                return;
+            }
+            if (idx >= sharedStringCache.length) {
+                sharedStringCache = Arrays.copyOf(sharedStringCache, Math.max(idx + 1, Math.min(sst.getUniqueCount(), sharedStringCache.length * 2 + 16)));
             }
+            String value = sharedStringCache[idx];
+            if (value == null) {
+                value = sst.getItemAt(idx).getString();
+                sharedStringCache[idx] = value;
+            }
+            length = valueStart;
+            ensureBuffer(length + value.length());
+            value.getChars(0, value.length(), buffer, length);
+            length += value.length();
+        }
 
-            // Extract column letters
-            String colRef = cellRef.replaceAll("[0-9]", "");
+        private void addCell(int start, int end) {
+            if (cellCount == cellStart.length) {
+                cellStart = Arrays.copyOf(cellStart, cellCount * 2);
+                cellEnd = Arrays.copyOf(cellEnd, cellCount * 2);
+            }
+            if (cellCount == slices.length) {
+                slices = Arrays.copyOf(slices, Math.max(16, slices.length * 2));
+                for (int i = cellCount; i < slices.length; i++) {
+                    slices[i] = new Slice(i);
+                }
+            }
+            cellStart[cellCount] = start;
+            cellEnd[cellCount] = end;
+            cellCount++;
+        }
+
+        private void ensureBuffer(int capacity) {
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+            }
+        }
+
+        /**
+         * Get column index from cell reference (e.g., "A1" -> 0, "B1" -> 1), or
+         * -1 if there is no reference
+         */
+        private static int columnIndex(String cellRef) {
+            if (cellRef == null) {
+                return -1;
+            }
             int col = 0;
-            for (int i = 0; i < colRef.length(); i++) {
-                col = col * 26 + (colRef.charAt(i) - 'A' + 1);
+            for (int i = 0; i < cellRef.length(); i++) {
+                char c = cellRef.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                col = col * 26 + (c - 'A' + 1);
             }
             return col - 1;
         }
+
+        /**
+         * Zero-copy view of one cell of the current row
+         */
+        private final class Slice implements CharSequence {
+
+            private final int index;
+
+            Slice(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public int length() {
+                return cellEnd[index] - cellStart[index];
+            }
+
+            @Override
+            public char charAt(int i) {
+                if (i < 0 || i >= length()) {
+                    throw new IndexOutOfBoundsException(i);
+                }
+                return buffer[cellStart[index] + i];
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return toString().substring(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return new String(buffer, cellStart[index], length());
+            }
+        }
     }
 }
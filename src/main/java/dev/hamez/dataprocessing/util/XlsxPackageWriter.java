@@ -0,0 +1,413 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Lean XLSX writer that streams SpreadsheetML straight into a
+ * {@link ZipOutputStream}, without the POI object model or temp files.
+ * <p>
+ * Rows can be added one cell at a time ({@link #startRow()},
+ * {@link #stringCell}, {@link #numberCell}, ...) or as pre-rendered
+ * {@code <row>} fragments built with the static {@code append*} helpers, which
+ * lets several threads render rows while one thread writes the package. The
+ * two styles should not be mixed within a sheet. Strings are written inline;
+ * a small, fixed set of repeated values can go through a shared strings table
+ * set up with {@link #setSharedStrings}.
+ */
+public class XlsxPackageWriter implements Closeable {
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NS_PKG_REL = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    /**
+     * Most rows a worksheet can hold (Excel 2007+)
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    // Buffered row XML is encoded and written once it passes this many chars
+    private static final int ROW_BUFFER_CHARS = 64 * 1024;
+
+    private final ZipOutputStream zip;
+    private final List<String> sheetNames = new ArrayList<>();
+    private List<String> sharedStrings = List.of();
+    private boolean inSheet;
+
+    private final StringBuilder rowBuffer = new StringBuilder(ROW_BUFFER_CHARS + 4096);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer encoded = ByteBuffer.allocate(ROW_BUFFER_CHARS * 2);
+    private long rowNum;
+    private int col;
+    private boolean inRow;
+
+    public XlsxPackageWriter(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compressionLevel deflate level, 0-9 or -1 for the zlib default.
+     * Lower levels trade file size for write speed.
+     */
+    public XlsxPackageWriter(OutputStream out, int compressionLevel) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.zip.setLevel(compressionLevel);
+    }
+
+    /**
+     * Register the shared strings table; cells then refer to an entry by its
+     * index in {@code values}. Must be called before the first sheet.
+     */
+    public void setSharedStrings(List<String> values) {
+        if (!sheetNames.isEmpty()) {
+            throw new IllegalStateException("Shared strings must be set before the first sheet");
+        }
+        this.sharedStrings = List.copyOf(values);
+    }
+
+    /**
+     * Start a new worksheet, ending the current one if any
+     */
+    public void startSheet(String name) throws IOException {
+        if (inSheet) {
+            endSheet();
+        }
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"" + NS_MAIN + "\"><sheetData>");
+        inSheet = true;
+        rowNum = 0;
+    }
+
+    /**
+     * Append UTF-8 encoded, pre-rendered {@code <row>} elements to the current
+     * sheet
+     *
+     * @param rowCount number of rows in {@code rows}, counted against
+     * {@link #MAX_ROWS_PER_SHEET}
+     * @throws IllegalStateException if the rows would not fit in the sheet
+     */
+    public void writeRows(byte[] rows, int off, int len, int rowCount) throws IOException {
+        if (!inSheet) {
+            throw new IllegalStateException("startSheet must be called before writing rows");
+        }
+        if (inRow) {
+            endRow();
+        }
+        if (rowNum + rowCount > MAX_ROWS_PER_SHEET) {
+            throw new IllegalStateException("Sheet is full at " + MAX_ROWS_PER_SHEET + " rows; start a new sheet");
+        }
+        zip.write(rows, off, len);
+        rowNum += rowCount;
+    }
+
+    // ---- Cell-at-a-time API ----
+    /**
+     * Start the next row of the current sheet
+     *
+     * @throws IllegalStateException if the sheet already holds
+     * {@link #MAX_ROWS_PER_SHEET} rows
+     */
+    public void startRow() throws IOException {
+        if (!inSheet) {
+            throw new IllegalStateException("startSheet must be called before writing rows");
+        }
+        if (inRow) {
+            endRow();
+        }
+        if (rowNum >= MAX_ROWS_PER_SHEET) {
+            throw new IllegalStateException("Sheet is full at " + MAX_ROWS_PER_SHEET + " rows; start a new sheet");
+        }
+        rowNum++;
+        col = 0;
+        appendRowStart(rowBuffer, rowNum);
+        inRow = true;
+    }
+
+    public void numberCell(long value) {
+        appendNumberCell(rowBuffer, col++, rowNum, value);
+    }
+
+    /**
+     * Inline string cell; a null value leaves the cell empty
+     */
+    public void stringCell(CharSequence value) {
+        if (value == null) {
+            col++;
+            return;
+        }
+        appendStringCell(rowBuffer, col++, rowNum, value);
+    }
+
+    /**
+     * Cell referring to entry {@code index} of the shared strings table
+     */
+    public void sharedStringCell(int index) {
+        appendSharedStringCell(rowBuffer, col++, rowNum, index);
+    }
+
+    public void blankCell() {
+        col++;
+    }
+
+    public void endRow() throws IOException {
+        if (!inRow) {
+            return;
+        }
+        appendRowEnd(rowBuffer);
+        inRow = false;
+        if (rowBuffer.length() >= ROW_BUFFER_CHARS) {
+            flushRows();
+        }
+    }
+
+    /**
+     * Rows in the current sheet, started or written pre-rendered
+     */
+    public long getRowCount() {
+        return rowNum;
+    }
+
+    public void endSheet() throws IOException {
+        if (!inSheet) {
+            return;
+        }
+        endRow();
+        flushRows();
+        write("</sheetData></worksheet>");
+        zip.closeEntry();
+        inSheet = false;
+    }
+
+    /**
+     * Write the workbook parts for the sheets written so far and finish the
+     * archive. Closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        try (zip) {
+            endSheet();
+            writeWorkbookParts();
+            zip.finish();
+        }
+    }
+
+    private void flushRows() throws IOException {
+        if (rowBuffer.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(rowBuffer);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, encoded, true);
+            zip.write(encoded.array(), 0, encoded.position());
+            encoded.clear();
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+        rowBuffer.setLength(0);
+    }
+
+    private void writeWorkbookParts() throws IOException {
+        StringBuilder sb = new StringBuilder(1024);
+
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<workbook xmlns=\"").append(NS_MAIN).append("\" xmlns:r=\"").append(NS_REL).append("\"><sheets>");
+        for (int i = 0; i < sheetNames.size(); i++) {
+            sb.append("<sheet name=\"");
+            appendEscaped(sb, sheetNames.get(i));
+            sb.append("\" sheetId=\"").append(i + 1).append("\" r:id=\"rId").append(i + 1).append("\"/>");
+        }
+        sb.append("</sheets></workbook>");
+        putEntry("xl/workbook.xml", sb);
+
+        sb.setLength(0);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"").append(NS_PKG_REL).append("\">");
+        for (int i = 0; i < sheetNames.size(); i++) {
+            sb.append("<Relationship Id=\"rId").append(i + 1)
+                    .append("\" Type=\"").append(NS_REL).append("/worksheet\" Target=\"worksheets/sheet")
+                    .append(i + 1).append(".xml\"/>");
+        }
+        sb.append("<Relationship Id=\"rId").append(sheetNames.size() + 1)
+                .append("\" Type=\"").append(NS_REL).append("/styles\" Target=\"styles.xml\"/>");
+        if (!sharedStrings.isEmpty()) {
+            sb.append("<Relationship Id=\"rId").append(sheetNames.size() + 2)
+                    .append("\" Type=\"").append(NS_REL).append("/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        sb.append("</Relationships>");
+        putEntry("xl/_rels/workbook.xml.rels", sb);
+
+        if (!sharedStrings.isEmpty()) {
+            sb.setLength(0);
+            sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                    .append("<sst xmlns=\"").append(NS_MAIN).append("\" uniqueCount=\"").append(sharedStrings.size()).append("\">");
+            for (String value : sharedStrings) {
+                sb.append("<si><t>");
+                appendEscaped(sb, value);
+                sb.append("</t></si>");
+            }
+            sb.append("</sst>");
+            putEntry("xl/sharedStrings.xml", sb);
+        }
+
+        sb.setLength(0);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<styleSheet xmlns=\"").append(NS_MAIN).append("\">")
+                .append("<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>")
+                .append("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>")
+                .append("<fill><patternFill patternType=\"gray125\"/></fill></fills>")
+                .append("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>")
+                .append("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>")
+                .append("<cellXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/></cellXfs>")
+                .append("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>")
+                .append("</styleSheet>");
+        putEntry("xl/styles.xml", sb);
+
+        sb.setLength(0);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"").append(NS_PKG_REL).append("\">")
+                .append("<Relationship Id=\"rId1\" Type=\"").append(NS_REL)
+                .append("/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>");
+        putEntry("_rels/.rels", sb);
+
+        sb.setLength(0);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        if (!sharedStrings.isEmpty()) {
+            sb.append("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        }
+        for (int i = 0; i < sheetNames.size(); i++) {
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i + 1)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        sb.append("</Types>");
+        putEntry("[Content_Types].xml", sb);
+    }
+
+    private void putEntry(String name, CharSequence content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        write(content);
+        zip.closeEntry();
+    }
+
+    private void write(CharSequence content) throws IOException {
+        zip.write(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---- Row rendering helpers ----
+    /**
+     * Append {@code <row r="rowNum">}; rows are 1-based
+     */
+    public static void appendRowStart(StringBuilder sb, long rowNum) {
+        sb.append("<row r=\"").append(rowNum).append("\">");
+    }
+
+    public static void appendRowEnd(StringBuilder sb) {
+        sb.append("</row>");
+    }
+
+    /**
+     * Append a numeric cell at a 0-based column
+     */
+    public static void appendNumberCell(StringBuilder sb, int col, long rowNum, long value) {
+        sb.append("<c r=\"");
+        appendCellRef(sb, col, rowNum);
+        sb.append("\"><v>").append(value).append("</v></c>");
+    }
+
+    /**
+     * Append a shared string cell at a 0-based column
+     */
+    public static void appendSharedStringCell(StringBuilder sb, int col, long rowNum, int index) {
+        sb.append("<c r=\"");
+        appendCellRef(sb, col, rowNum);
+        sb.append("\" t=\"s\"><v>").append(index).append("</v></c>");
+    }
+
+    /**
+     * Append an inline string cell at a 0-based column
+     */
+    public static void appendStringCell(StringBuilder sb, int col, long rowNum, CharSequence value) {
+        appendStringCellStart(sb, col, rowNum);
+        appendEscaped(sb, value);
+        appendStringCellEnd(sb);
+    }
+
+    /**
+     * Open an inline string cell; the caller appends already-escaped text and
+     * then calls {@link #appendStringCellEnd}
+     */
+    public static void appendStringCellStart(StringBuilder sb, int col, long rowNum) {
+        sb.append("<c r=\"");
+        appendCellRef(sb, col, rowNum);
+        sb.append("\" t=\"inlineStr\"><is><t>");
+    }
+
+    public static void appendStringCellEnd(StringBuilder sb) {
+        sb.append("</t></is></c>");
+    }
+
+    /**
+     * Append an A1-style reference, e.g. column 0, row 1 -> "A1"
+     */
+    public static void appendCellRef(StringBuilder sb, int col, long rowNum) {
+        appendColumnLetters(sb, col);
+        sb.append(rowNum);
+    }
+
+    private static void appendColumnLetters(StringBuilder sb, int col) {
+        if (col >= 26) {
+            appendColumnLetters(sb, col / 26 - 1);
+        }
+        sb.append((char) ('A' + col % 26));
+    }
+
+    /**
+     * Append text escaped for XML content and attributes, dropping characters
+     * that are not allowed in XML 1.0
+     */
+    public static void appendEscaped(StringBuilder sb, CharSequence value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '&' ->
+                    sb.append("&amp;");
+                case '<' ->
+                    sb.append("&lt;");
+                case '>' ->
+                    sb.append("&gt;");
+                case '"' ->
+                    sb.append("&quot;");
+                default -> {
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                        sb.append(ch);
+                    }
+                }
+            }
+        }
+    }
+}
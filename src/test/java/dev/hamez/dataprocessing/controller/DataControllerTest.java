@@ -0,0 +1,60 @@
+package dev.hamez.dataprocessing.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import dev.hamez.dataprocessing.job.JobService;
+import dev.hamez.dataprocessing.job.JobType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DataControllerTest {
+
+    MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        // Bad parameters are refused before any service is touched
+        mvc = MockMvcBuilders.standaloneSetup(new DataController(null, null, null, null, null)).build();
+    }
+
+    @Test
+    void asyncRequest_getsServiceUnavailableWhenTheJobQueueIsFull() throws Exception {
+        JobService jobs = new JobService(1, 1, 10, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            jobs.submit(JobType.GENERATE, null, progress -> release.await(5, TimeUnit.SECONDS));
+            jobs.submit(JobType.GENERATE, null, progress -> release.await(5, TimeUnit.SECONDS));
+            MockMvc busy = MockMvcBuilders.standaloneSetup(new DataController(null, null, null, jobs, null)).build();
+
+            busy.perform(post("/api/data/generate").param("numberOfRecords", "10").param("async", "true"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+            jobs.shutdown();
+        }
+    }
+
+    @Test
+    void upload_rejectsUnknownMode() throws Exception {
+        mvc.perform(post("/api/data/upload").param("filename", "students.csv").param("mode", "cpy"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown mode: cpy"));
+    }
+
+    @Test
+    void process_rejectsPipelinedWithSeveralSheets() throws Exception {
+        mvc.perform(post("/api/data/process").param("filename", "students.xlsx")
+                .param("sheets", "each").param("pipelined", "true"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("pipelined needs sheets=first"));
+    }
+}
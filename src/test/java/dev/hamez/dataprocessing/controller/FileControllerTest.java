@@ -0,0 +1,86 @@
+package dev.hamez.dataprocessing.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.service.DataProcessingService;
+import dev.hamez.dataprocessing.service.OutputCompressor;
+
+class FileControllerTest {
+
+    @TempDir
+    Path storage;
+
+    MockMvc mvc;
+    byte[] csv;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataProcessingService dataService = new DataProcessingService(PipelineMetrics.NONE, OutputCompressor.DEFAULTS, "SplittableRandom", -1, 1000, 8,
+                "mapped", 4);
+        ReflectionTestUtils.setField(dataService, "storagePath", storage.toString());
+        mvc = MockMvcBuilders.standaloneSetup(new FileController(dataService, 1)).build();
+        csv = "\"studentId\",\"score\"\n\"1\",\"70\"\n\"2\",\"80\"\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Files.write(storage.resolve("students.csv"), csv);
+    }
+
+    @Test
+    void servesRangesAndHonoursEtags() throws Exception {
+        MvcResult full = mvc.perform(get("/api/data/files/students.csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", csv.length))
+                .andExpect(content().bytes(csv))
+                .andReturn();
+        String etag = full.getResponse().getHeader("ETag");
+
+        mvc.perform(get("/api/data/files/students.csv").header("Range", "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 10-19/" + csv.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(csv, 10, 20)));
+        mvc.perform(get("/api/data/files/students.csv").header("Range", "bytes=-5"))
+                .andExpect(content().bytes(Arrays.copyOfRange(csv, csv.length - 5, csv.length)));
+        mvc.perform(get("/api/data/files/students.csv").header("Range", "bytes=" + csv.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        // Stale If-Range: the whole current file
+        mvc.perform(get("/api/data/files/students.csv").header("Range", "bytes=10-19").header("If-Range", "\"old\""))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/data/files/students.csv").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/api/data/files/.uploads"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void gzipsCsvWhenAccepted() throws Exception {
+        MvcResult result = mvc.perform(get("/api/data/files/students.csv").header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assertThat(body.length).isLessThan(csv.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(in.readAllBytes()).isEqualTo(csv);
+        }
+        mvc.perform(get("/api/data/files/students.csv").header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+}
@@ -0,0 +1,29 @@
+package dev.hamez.dataprocessing.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import dev.hamez.dataprocessing.service.OutputCompressor;
+
+class StudentControllerTest {
+
+    @Test
+    void csvExport_rejectsUnknownCompression() throws Exception {
+        // The request is refused before any service is touched
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new StudentController(null, null, null, null, OutputCompressor.DEFAULTS)).build();
+
+        // The error body streams like the export would, so it is written on an async dispatch
+        MvcResult result = mvc.perform(get("/api/students/export/csv").param("compression", "xz")).andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Unknown compression: xz"));
+    }
+}
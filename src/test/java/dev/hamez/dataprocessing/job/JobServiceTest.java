@@ -0,0 +1,113 @@
+package dev.hamez.dataprocessing.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JobServiceTest {
+
+    JobService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueue_rejectsTheJob() throws Exception {
+        // One worker, one queue slot
+        service = new JobService(1, 1, 10, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        Job running = service.submit(JobType.GENERATE, null, progress -> release.await(5, TimeUnit.SECONDS));
+        service.submit(JobType.GENERATE, null, progress -> "queued");
+
+        assertThatThrownBy(() -> service.submit(JobType.GENERATE, null, progress -> "rejected"))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(service.list()).hasSize(2);
+
+        release.countDown();
+        assertThat(awaitFinished(running)).isEqualTo(JobStatus.SUCCEEDED);
+    }
+
+    @Test
+    void cancellingAQueuedJob_neverRunsIt() throws Exception {
+        service = new JobService(1, 10, 10, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        Job first = service.submit(JobType.GENERATE, null, progress -> release.await(5, TimeUnit.SECONDS));
+        AtomicBoolean ran = new AtomicBoolean();
+        Job queued = service.submit(JobType.GENERATE, null, progress -> ran.getAndSet(true));
+
+        service.cancel(queued.getId());
+        release.countDown();
+
+        assertThat(awaitFinished(first)).isEqualTo(JobStatus.SUCCEEDED);
+        assertThat(queued.getStatus()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void cancelBeforeTheWorkerStarts_winsOverMarkRunning() {
+        // The interleaving of a cancel that lands between the worker's dequeue and markRunning
+        Job job = new Job("1", JobType.PROCESS, null);
+        job.requestCancel();
+
+        assertThat(job.markRunning()).isFalse();
+        assertThat(job.getStatus()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(job.getStartedAt()).isNull();
+    }
+
+    @Test
+    void cancellingARunningJob_stopsItAtTheNextProgressReport() throws Exception {
+        service = new JobService(1, 10, 10, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        Job job = service.submit(JobType.UPLOAD, null, progress -> {
+            started.countDown();
+            for (long rows = 0;; rows++) {
+                progress.onProgress(rows);
+                Thread.onSpinWait();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        service.cancel(job.getId());
+
+        assertThat(awaitFinished(job)).isEqualTo(JobStatus.CANCELLED);
+        assertThat(job.getFinishedAt()).isNotNull();
+    }
+
+    @Test
+    void finishedJobs_arePrunedOldestFirst() throws Exception {
+        service = new JobService(1, 10, 2, new SimpleMeterRegistry());
+        Job oldest = service.submit(JobType.GENERATE, null, progress -> "a");
+        awaitFinished(oldest);
+        Job middle = service.submit(JobType.GENERATE, null, progress -> "b");
+        awaitFinished(middle);
+        Job newest = service.submit(JobType.GENERATE, null, progress -> "c");
+        awaitFinished(newest);
+
+        Job next = service.submit(JobType.GENERATE, null, progress -> "d");
+
+        assertThat(service.find(oldest.getId())).isEmpty();
+        assertThat(service.find(middle.getId())).isEmpty();
+        assertThat(service.list()).extracting(Job::getId).containsExactlyInAnyOrder(newest.getId(), next.getId());
+    }
+
+    private static JobStatus awaitFinished(Job job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return job.getStatus();
+    }
+}
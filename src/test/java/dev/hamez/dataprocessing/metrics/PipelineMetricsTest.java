@@ -0,0 +1,28 @@
+package dev.hamez.dataprocessing.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PipelineMetricsTest {
+
+    @Test
+    void tagsFilesByFormatSoSeriesStayBounded() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PipelineMetrics metrics = new PipelineMetrics(registry);
+
+        metrics.rows("parsed", "/api/data/process", "students_20250101120000.xlsx", 1000);
+        metrics.rows("parsed", "/api/data/process", "any name a client chose.XLSX", 500);
+        metrics.time("parse", "/api/data/process", "students_20250102120000.xlsx", TimeUnit.MILLISECONDS.toNanos(40));
+
+        assertThat(registry.get("pipeline.rows").tag("format", "xlsx").tag("stage", "parsed").counter().count())
+                .isEqualTo(1500);
+        assertThat(registry.get("pipeline.stage").tag("stage", "parse").timer().count()).isEqualTo(1);
+        assertThat(PipelineMetrics.format("students_20250101120000_processed_20250101120500.csv.gz")).isEqualTo("csv.gz");
+        assertThat(PipelineMetrics.format("upload.bin")).isEqualTo("other");
+    }
+}
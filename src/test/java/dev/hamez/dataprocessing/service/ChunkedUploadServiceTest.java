@@ -0,0 +1,93 @@
+package dev.hamez.dataprocessing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    Path storage;
+
+    DataProcessingService dataService;
+
+    @BeforeEach
+    void setUp() {
+        dataService = new DataProcessingService(PipelineMetrics.NONE, OutputCompressor.DEFAULTS, "SplittableRandom", -1, 1000, 8,
+                "mapped", 4);
+        ReflectionTestUtils.setField(dataService, "storagePath", storage.toString());
+    }
+
+    @Test
+    void chunksInAnyOrderSurviveARestartAndCompleteWithChecksum() throws Exception {
+        byte[] data = new byte[1_000_000];
+        new Random(7).nextBytes(data);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+
+        ChunkedUploadService uploads = new ChunkedUploadService(dataService, 10);
+        String id = uploads.start("big.csv", data.length).uploadId;
+        chunk(uploads, id, data, 600_000, 1_000_000);
+        chunk(uploads, id, data, 0, 300_000);
+        // Resent overlapping chunk
+        chunk(uploads, id, data, 200_000, 400_000);
+
+        ChunkedUploadService restarted = new ChunkedUploadService(dataService, 10);
+        UploadStatus status = restarted.status(id);
+        assertThat(status.received).isEqualTo(800_000);
+        assertThat(status.missing).singleElement().satisfies(r -> {
+            assertThat(r.start).isEqualTo(400_000);
+            assertThat(r.end).isEqualTo(600_000);
+        });
+        assertThatThrownBy(() -> restarted.complete(id, sha256)).isInstanceOf(IllegalStateException.class);
+
+        chunk(restarted, id, data, 400_000, 600_000);
+        assertThatThrownBy(() -> restarted.complete(id, "00" + sha256.substring(2)))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("Checksum");
+        UploadStatus done = restarted.complete(id, sha256.toUpperCase());
+
+        assertThat(done.completed).isTrue();
+        assertThat(Files.readAllBytes(storage.resolve("big.csv"))).isEqualTo(data);
+        try (var files = Files.list(storage.resolve(".uploads"))) {
+            assertThat(files).isEmpty();
+        }
+        assertThatThrownBy(() -> restarted.start("big.csv", 1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> restarted.start("../big.csv", 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void completingOntoAFileThatAppearedMeanwhileConflicts() throws Exception {
+        byte[] data = "\"studentId\"\n\"1\"\n".getBytes(StandardCharsets.UTF_8);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        ChunkedUploadService uploads = new ChunkedUploadService(dataService, 10);
+        String first = uploads.start("same.csv", data.length).uploadId;
+        String second = uploads.start("same.csv", data.length).uploadId;
+        chunk(uploads, first, data, 0, data.length);
+        chunk(uploads, second, data, 0, data.length);
+        uploads.complete(first, sha256);
+        Files.writeString(storage.resolve("same.csv"), "kept");
+
+        assertThatThrownBy(() -> uploads.complete(second, sha256))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("already exists");
+        assertThat(Files.readString(storage.resolve("same.csv"))).isEqualTo("kept");
+        assertThat(uploads.status(second).received).isEqualTo(data.length);
+    }
+
+    private static void chunk(ChunkedUploadService uploads, String id, byte[] data, int from, int to) throws Exception {
+        uploads.writeChunk(id, from, to - from, new ByteArrayInputStream(Arrays.copyOfRange(data, from, to)));
+    }
+}
@@ -0,0 +1,58 @@
+package dev.hamez.dataprocessing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dev.hamez.dataprocessing.entity.ClassScoreCount;
+import dev.hamez.dataprocessing.entity.ClassStats;
+
+class ClassSummaryTest {
+
+    @Test
+    void derivesMeanRangeAndHistogramFromScoreCounts() {
+        ClassStats stats = stats("Class1", 7, 6, 58 + 2 * 65 + 69 + 2 * 84);
+        List<ClassScoreCount> scores = List.of(count("Class1", 58, 1), count("Class1", 65, 2),
+                count("Class1", 69, 1), count("Class1", 84, 2));
+
+        ClassSummary summary = new ClassSummary(stats, scores, 10);
+
+        assertEquals(7, summary.students);
+        assertEquals(425 / 6.0, summary.meanScore);
+        assertEquals(58, summary.minScore);
+        assertEquals(84, summary.maxScore);
+        assertEquals(Map.of(50, 1L, 60, 3L, 80, 2L), summary.histogram);
+    }
+
+    @Test
+    void leavesScoreFieldsEmptyWithoutScores() {
+        ClassSummary summary = new ClassSummary(stats("Class2", 3, 0, 0), List.of(), 10);
+
+        assertEquals(3, summary.students);
+        assertNull(summary.meanScore);
+        assertNull(summary.minScore);
+        assertEquals(Map.of(), summary.histogram);
+    }
+
+    private static ClassStats stats(String className, long students, long scored, long scoreSum) {
+        ClassStats stats = new ClassStats();
+        ReflectionTestUtils.setField(stats, "className", className);
+        ReflectionTestUtils.setField(stats, "students", students);
+        ReflectionTestUtils.setField(stats, "scored", scored);
+        ReflectionTestUtils.setField(stats, "scoreSum", scoreSum);
+        return stats;
+    }
+
+    private static ClassScoreCount count(String className, int score, long students) {
+        ClassScoreCount count = new ClassScoreCount();
+        ReflectionTestUtils.setField(count, "className", className);
+        ReflectionTestUtils.setField(count, "score", score);
+        ReflectionTestUtils.setField(count, "students", students);
+        return count;
+    }
+}
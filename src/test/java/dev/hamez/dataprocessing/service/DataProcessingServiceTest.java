@@ -0,0 +1,132 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.util.Compression;
+import dev.hamez.dataprocessing.util.ProgressListener;
+import dev.hamez.dataprocessing.util.StreamingExcelReader;
+import dev.hamez.dataprocessing.util.XlsxPackageWriter;
+
+class DataProcessingServiceTest {
+
+    @TempDir
+    Path storage;
+
+    DataProcessingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DataProcessingService(PipelineMetrics.NONE, OutputCompressor.DEFAULTS, "SplittableRandom", -1, 1000, 8,
+                "mapped", 4);
+        ReflectionTestUtils.setField(service, "storagePath", storage.toString());
+    }
+
+    @Test
+    void parallelGeneration_keepsStudentIdsSequential() throws Exception {
+        String path = service.generateExcel(25_000, 4, null, ProgressListener.NONE);
+
+        List<Long> ids = new ArrayList<>();
+        try (InputStream is = Files.newInputStream(Path.of(path))) {
+            StreamingExcelReader.readExcelStreaming(is, (rowNum, cells) -> {
+                assertThat(cells).hasSize(6);
+                if (rowNum > 1) {
+                    ids.add(Long.parseLong(cells.get(0)));
+                    assertThat(cells.get(4)).matches("Class[1-5]");
+                    assertThat(Integer.parseInt(cells.get(5))).isBetween(55, 75);
+                }
+            });
+        }
+        assertThat(ids).hasSize(25_000);
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isEqualTo(i + 1L);
+        }
+
+        // The package must also open with the full POI object model
+        try (Workbook wb = WorkbookFactory.create(Path.of(path).toFile())) {
+            assertThat(wb.getSheetAt(0).getLastRowNum()).isEqualTo(25_000);
+            assertThat(wb.getSheetAt(0).getRow(0).getCell(0).getStringCellValue()).isEqualTo("studentId");
+            assertThat(wb.getSheetAt(0).getRow(1).getCell(4).getStringCellValue()).startsWith("Class");
+        }
+    }
+
+    @Test
+    void seededGeneration_isReproducible() throws Exception {
+        List<String> first = readRows(service.generateExcel(15_000, 4, 42L, ProgressListener.NONE));
+        List<String> second = readRows(service.generateExcel(15_000, 4, 42L, ProgressListener.NONE));
+
+        assertThat(first).hasSize(15_001);
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void generation_rejectsMoreRecordsThanOneSheetHolds() throws Exception {
+        // The header takes a row, so a full sheet of students does not fit
+        assertThatThrownBy(() -> service.generateExcel(XlsxPackageWriter.MAX_ROWS_PER_SHEET, 1, null, ProgressListener.NONE))
+                .isInstanceOf(IllegalArgumentException.class);
+        try (var files = Files.list(storage)) {
+            assertThat(files).isEmpty();
+        }
+
+        // The writer counts pre-rendered rows against the limit too
+        try (XlsxPackageWriter xlsx = new XlsxPackageWriter(Files.newOutputStream(storage.resolve("full.xlsx")), 1)) {
+            xlsx.startSheet("students");
+            xlsx.writeRows(new byte[0], 0, 0, XlsxPackageWriter.MAX_ROWS_PER_SHEET);
+            assertThat(xlsx.getRowCount()).isEqualTo(XlsxPackageWriter.MAX_ROWS_PER_SHEET);
+            assertThatThrownBy(() -> xlsx.writeRows(new byte[0], 0, 0, 1)).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(xlsx::startRow).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void outputNames_neverCollide() throws Exception {
+        Path first = service.processedCsvPath("students.xlsx");
+        Path second = service.processedCsvPath("students.xlsx");
+        assertThat(first).isNotEqualTo(second);
+
+        // A name that is taken anyway fails instead of truncating the other file
+        Files.writeString(first, "kept");
+        assertThatThrownBy(() -> service.newCsvWriter(first, Compression.NONE)).isInstanceOf(FileAlreadyExistsException.class);
+        assertThat(Files.readString(first)).isEqualTo("kept");
+    }
+
+    private static List<String> readRows(String path) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (InputStream is = Files.newInputStream(Path.of(path))) {
+            StreamingExcelReader.readExcelStreaming(is, (rowNum, cells) -> rows.add(String.join(",", cells)));
+        }
+        return rows;
+    }
+
+    @Test
+    void pipelinedProcessing_matchesSequentialOutput() throws Exception {
+        // Small batches so the parser has to wait for the writer
+        service = new DataProcessingService(PipelineMetrics.NONE, OutputCompressor.DEFAULTS, "SplittableRandom", -1, 64, 1,
+                "mapped", 4);
+        ReflectionTestUtils.setField(service, "storagePath", storage.toString());
+        String excel = Path.of(service.generateExcel(5_000, 1, 7L, ProgressListener.NONE)).getFileName().toString();
+
+        Path sequential = storage.resolve(service.processExcelFromStorage(excel));
+        String expected = Files.readString(sequential);
+        Files.delete(sequential);
+
+        ProcessResult result = service.processExcelPipelined(excel, ProgressListener.NONE);
+
+        assertThat(result.rows).isEqualTo(5_001);
+        assertThat(Files.readString(storage.resolve(result.file))).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,121 @@
+package dev.hamez.dataprocessing.service;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.service.ExcelBatchService.SheetMode;
+import dev.hamez.dataprocessing.util.ProgressListener;
+import dev.hamez.dataprocessing.util.XlsxPackageWriter;
+
+class ExcelBatchServiceTest {
+
+    @TempDir
+    Path storage;
+
+    ExcelBatchService batchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataProcessingService dataService = new DataProcessingService(PipelineMetrics.NONE, OutputCompressor.DEFAULTS, "SplittableRandom", -1, 1000, 8,
+                "mapped", 4);
+        ReflectionTestUtils.setField(dataService, "storagePath", storage.toString());
+        batchService = new ExcelBatchService(dataService, PipelineMetrics.NONE);
+        writeWorkbook("a.xlsx", 3, 2_500);
+        writeWorkbook("b.xlsx", 2, 10);
+    }
+
+    @Test
+    void eachMode_writesOneCsvPerSheet() throws Exception {
+        BatchProcessResult result = batchService.processFiles(List.of("a.xlsx"), SheetMode.EACH, 3, ProgressListener.NONE);
+
+        assertThat(result.errors).isEmpty();
+        assertThat(result.sheets).isEqualTo(3);
+        assertThat(result.rows).isEqualTo(3 * 2_501);
+        assertThat(result.outputs).hasSize(3).allMatch(name -> name.startsWith("a_Sheet"));
+        List<String> lines = Files.readAllLines(storage.resolve(result.outputs.get(1)));
+        assertThat(lines.get(0)).isEqualTo("\"studentId\",\"score\"");
+        assertThat(lines.get(1)).isEqualTo("\"2000001\",\"70\"");
+    }
+
+    @Test
+    void mergedMode_keepsSheetOrderAndOneHeader() throws Exception {
+        BatchProcessResult result = batchService.processFiles(List.of("a.xlsx"), SheetMode.MERGED, 3, ProgressListener.NONE);
+
+        assertThat(result.outputs).hasSize(1);
+        List<String> lines = Files.readAllLines(storage.resolve(result.outputs.get(0)));
+        assertThat(lines).hasSize(1 + 3 * 2_500);
+        assertThat(lines.get(1)).isEqualTo("\"1000001\",\"70\"");
+        assertThat(lines.get(2_501)).isEqualTo("\"2000001\",\"70\"");
+        assertThat(lines.get(lines.size() - 1)).isEqualTo("\"3002500\",\"70\"");
+        try (var files = Files.list(storage)) {
+            assertThat(files.map(p -> p.getFileName().toString())).noneMatch(name -> name.contains(".part"));
+        }
+    }
+
+    @Test
+    void glob_selectsFilesAndReportsFailuresSeparately() throws Exception {
+        Files.writeString(storage.resolve("broken.xlsx"), "not a workbook");
+        List<String> files = batchService.matchFiles("*.xlsx");
+        assertThat(files).containsExactly("a.xlsx", "b.xlsx", "broken.xlsx");
+
+        BatchProcessResult result = batchService.processFiles(files, SheetMode.FIRST, 2, ProgressListener.NONE);
+
+        assertThat(result.rows).isEqualTo(2_501 + 11);
+        assertThat(result.outputs).hasSize(2).allMatch(name -> name.startsWith("a_") || name.startsWith("b_"));
+        assertThat(result.errors).containsOnlyKeys("broken.xlsx");
+    }
+
+    @Test
+    void collidingInputs_getOutputsOfTheirOwn() throws Exception {
+        // Sheet names that safeName maps alike, a repeated file and a shared base name
+        writeWorkbook("c.xlsx", List.of("Sheet 1", "Sheet_1"), 10);
+        Files.copy(storage.resolve("b.xlsx"), storage.resolve("b.xls"));
+
+        BatchProcessResult result = batchService.processFiles(List.of("c.xlsx", "c.xlsx", "b.xlsx", "b.xls"),
+                SheetMode.EACH, 4, ProgressListener.NONE);
+
+        assertThat(result.errors).isEmpty();
+        assertThat(result.sheets).isEqualTo(6);
+        assertThat(result.outputs).hasSize(6).doesNotHaveDuplicates();
+        for (String output : result.outputs) {
+            assertThat(Files.readAllLines(storage.resolve(output))).hasSize(11);
+        }
+    }
+
+    private void writeWorkbook(String name, int sheets, int rowsPerSheet) throws Exception {
+        List<String> sheetNames = new ArrayList<>();
+        for (int s = 1; s <= sheets; s++) {
+            sheetNames.add("Sheet " + s);
+        }
+        writeWorkbook(name, sheetNames, rowsPerSheet);
+    }
+
+    private void writeWorkbook(String name, List<String> sheetNames, int rowsPerSheet) throws Exception {
+        try (OutputStream os = Files.newOutputStream(storage.resolve(name)); XlsxPackageWriter writer = new XlsxPackageWriter(os)) {
+            for (int s = 1; s <= sheetNames.size(); s++) {
+                writer.startSheet(sheetNames.get(s - 1));
+                writer.startRow();
+                writer.stringCell("studentId");
+                writer.stringCell("score");
+                writer.endRow();
+                for (int r = 1; r <= rowsPerSheet; r++) {
+                    writer.startRow();
+                    writer.numberCell(s * 1_000_000L + r);
+                    writer.numberCell(60);
+                    writer.endRow();
+                }
+                writer.endSheet();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dev.hamez.dataprocessing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import dev.hamez.dataprocessing.entity.Student;
+
+class StudentColumnsTest {
+
+    private final StudentColumns columns = new StudentColumns.Builder()
+            .add(1, "Ann", "Lee", LocalDate.of(2001, 5, 1), "Class3", 72)
+            .add(2, "Bob", "Ann", LocalDate.of(2003, 1, 9), "Class1", 58)
+            .add(3, "Cy", "Lee", null, "Class3", 65)
+            .add(4, "Di", "Ray", LocalDate.of(2002, 7, 3), "Class3", null)
+            .add(5, "Ed", "Ray", LocalDate.of(2004, 2, 29), "Class3", 91)
+            .build();
+
+    @Test
+    void filtersOnClassScoreAndDateOfBirth() {
+        assertEquals(5, columns.count(StudentFilter.ALL));
+        assertEquals(2, columns.count(new StudentFilter("Class3", 70, null, null, null)));
+        // Missing scores and dates never match a bound
+        assertEquals(3, columns.count(new StudentFilter(null, null, 80, null, null)));
+        assertEquals(2, columns.count(new StudentFilter(null, null, null, LocalDate.of(2002, 1, 1), LocalDate.of(2003, 12, 31))));
+        assertEquals(0, columns.count(new StudentFilter("Class9", null, null, null, null)));
+
+        List<Student> found = columns.find(new StudentFilter("Class3", 70, null, null, null), 10);
+        assertEquals(List.of(1L, 5L), found.stream().map(Student::getStudentId).toList());
+        assertEquals("Ray", found.get(1).getLastName());
+        assertEquals(LocalDate.of(2004, 2, 29), found.get(1).getDob());
+    }
+
+    @Test
+    void summarizesMatchingStudentsPerClass() {
+        List<ClassSummary> summaries = columns.summarize(StudentFilter.ALL, 10);
+
+        assertEquals(List.of("Class1", "Class3"), summaries.stream().map(s -> s.className).toList());
+        ClassSummary class3 = summaries.get(1);
+        assertEquals(4, class3.students);
+        assertEquals(3, class3.scored);
+        assertEquals((72 + 65 + 91) / 3.0, class3.meanScore);
+        assertEquals(65, class3.minScore);
+        assertEquals(91, class3.maxScore);
+        assertEquals(Map.of(60, 1L, 70, 1L, 90, 1L), class3.histogram);
+
+        ClassSummary unscored = columns.summarize(new StudentFilter("Class3", null, null, LocalDate.of(2002, 7, 3), LocalDate.of(2002, 7, 3)), 10).get(0);
+        assertEquals(1, unscored.students);
+        assertNull(unscored.meanScore);
+        assertNull(unscored.minScore);
+    }
+}
@@ -0,0 +1,32 @@
+package dev.hamez.dataprocessing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StudentCursorTest {
+
+    @Test
+    void roundTripsAndBindsClassFilter() {
+        StudentCursor all = StudentCursor.decode(new StudentCursor(null, 42).encode());
+        StudentCursor empty = StudentCursor.decode(new StudentCursor("", 7).encode());
+        StudentCursor class1 = StudentCursor.decode(new StudentCursor("Class1", 123).encode());
+
+        assertEquals(new StudentCursor(null, 42), all);
+        assertEquals(new StudentCursor("", 7), empty);
+        assertEquals(new StudentCursor("Class1", 123), class1);
+        assertTrue(class1.matches("Class1"));
+        assertFalse(class1.matches(null));
+        assertFalse(all.matches("Class1"));
+    }
+
+    @Test
+    void rejectsForeignTokens() {
+        assertThrows(IllegalArgumentException.class, () -> StudentCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> StudentCursor.decode("djI6MTIzOg"));
+        assertThrows(IllegalArgumentException.class, () -> StudentCursor.decode("djE6YWJjOg"));
+    }
+}
@@ -0,0 +1,53 @@
+package dev.hamez.dataprocessing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class StudentQueryCacheTest {
+
+    @Test
+    void evictsOnlyEntriesThatCanSeeTheWrittenClasses() {
+        StudentQueryCache cache = new StudentQueryCache(60, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            cache.get("Class1", new Object[]{"count"}, loads::incrementAndGet);
+            cache.get("Class2", new Object[]{"count"}, loads::incrementAndGet);
+            cache.get(null, new Object[]{"count"}, loads::incrementAndGet);
+        }
+        assertEquals(3, loads.get());
+
+        cache.evictClasses(Set.of("Class1"));
+        cache.get("Class1", new Object[]{"count"}, loads::incrementAndGet);
+        cache.get("Class2", new Object[]{"count"}, loads::incrementAndGet);
+        cache.get(null, new Object[]{"count"}, loads::incrementAndGet);
+        assertEquals(5, loads.get());
+
+        StudentQueryCache.Stats stats = cache.stats();
+        assertEquals(4, stats.hits);
+        assertEquals(5, stats.misses);
+        assertEquals(1, stats.invalidations);
+    }
+
+    @Test
+    void doesNotCacheLoadsThatOverlapAWriteOrExceedTheBound() {
+        StudentQueryCache cache = new StudentQueryCache(60, 3);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("Class1", new Object[]{"count"}, () -> {
+            cache.evictClasses(Set.of("Class1"));
+            return loads.incrementAndGet();
+        });
+        cache.get("Class1", new Object[]{"count"}, loads::incrementAndGet);
+        assertEquals(2, loads.get());
+
+        cache.get("Class1", new Object[]{"byClass"}, () -> List.of(loads.incrementAndGet(), 0, 0, 0));
+        cache.get("Class1", new Object[]{"byClass"}, () -> List.of(loads.incrementAndGet(), 0, 0, 0));
+        assertEquals(4, loads.get());
+    }
+}
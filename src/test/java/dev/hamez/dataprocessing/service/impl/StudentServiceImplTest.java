@@ -0,0 +1,80 @@
+package dev.hamez.dataprocessing.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import dev.hamez.dataprocessing.entity.Student;
+import dev.hamez.dataprocessing.metrics.PipelineMetrics;
+import dev.hamez.dataprocessing.util.XlsxPackageWriter;
+
+class StudentServiceImplTest {
+
+    @Test
+    void exportToExcel_rollsOverToNewSheetAtRowLimit() throws Exception {
+        StudentServiceImpl service = exporter(10, 1_000_000);
+
+        Stream<Student> students = IntStream.rangeClosed(1, 25).mapToObj(i -> {
+            Student s = new Student();
+            s.setStudentId((long) i);
+            s.setFirstName("First" + i);
+            s.setClassName("Class1");
+            s.setScore(60);
+            return s;
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportToExcel(students, out);
+
+        try (Workbook wb = WorkbookFactory.create(new ByteArrayInputStream(out.toByteArray()))) {
+            // 9 data rows per sheet under a repeated header
+            assertThat(wb.getNumberOfSheets()).isEqualTo(3);
+            Sheet last = wb.getSheetAt(2);
+            assertThat(last.getSheetName()).isEqualTo("students 3");
+            assertThat(last.getRow(0).getCell(0).getStringCellValue()).isEqualTo("studentId");
+            assertThat(last.getLastRowNum()).isEqualTo(7);
+            assertThat(last.getRow(1).getCell(0).getNumericCellValue()).isEqualTo(19);
+            assertThat(wb.getSheetAt(0).getLastRowNum()).isEqualTo(9);
+        }
+    }
+
+    @Test
+    void exportToPdf_paginatesFitsTextAndCapsRows() throws Exception {
+        StudentServiceImpl service = exporter(XlsxPackageWriter.MAX_ROWS_PER_SHEET, 150);
+
+        Stream<Student> students = IntStream.rangeClosed(1, 200).mapToObj(i -> {
+            Student s = new Student();
+            s.setStudentId((long) i);
+            s.setFirstName(i == 1 ? "Averyveryveryverylongfirstname" : "Ann (" + i + ")");
+            s.setLastName(i == 2 ? "\u03a9mega" : "Smith");
+            s.setClassName("Class1");
+            s.setScore(60);
+            return s;
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportToPdf(students, out);
+
+        try (PDDocument doc = PDDocument.load(out.toByteArray())) {
+            // 56 rows per page: 150 rows plus the truncation note
+            assertThat(doc.getNumberOfPages()).isEqualTo(3);
+            String text = new PDFTextStripper().getText(doc);
+            assertThat(text).contains("Averyveryveryver...").doesNotContain("Averyveryveryverylong");
+            assertThat(text).contains("Ann (3)").contains("?mega").contains("150").doesNotContain("Ann (151)");
+            assertThat(text).contains("Export truncated at 150 rows");
+        }
+    }
+
+    // Exports need no repository or database
+    private static StudentServiceImpl exporter(int maxRowsPerSheet, int pdfMaxRows) {
+        return new StudentServiceImpl(null, null, null, null, null, PipelineMetrics.NONE, null, 5000, -1, maxRowsPerSheet,
+                pdfMaxRows, 4, 32);
+    }
+}
@@ -0,0 +1,118 @@
+package dev.hamez.dataprocessing.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+
+class MappedCsvReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parallelChunksMatchASequentialParse() throws Exception {
+        StringBuilder csv = new StringBuilder("\"id\",\"name\",\"dob\",\"score\"\r\n");
+        for (int i = 0; i < 5000; i++) {
+            // Every third name spans lines, every fifth has escaped quotes, so chunk cuts land inside quotes
+            String name = i % 3 == 0 ? "two\nlines,\n" + i : i % 5 == 0 ? "Ann \"\"A\"\" " + i : "Zoë " + i;
+            csv.append('"').append(i).append("\",\"").append(name).append("\",\"2004-02-29\",\"").append(i % 101)
+                    .append(i % 2 == 0 ? "\"\r\n" : "\"\n");
+        }
+        Path file = dir.resolve("students.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        List<List<String[]>> chunks = MappedCsvReader.read(file, 4, true, true, ArrayList::new,
+                (List<String[]> chunk, MappedCsvReader.Record row) -> chunk.add(new String[] {
+                    row.string(0), row.dictionary(1), String.valueOf(LocalDate.ofEpochDay(row.epochDay(2, 0))),
+                    String.valueOf(row.integer(3, -1))}));
+        assertThat(chunks).hasSizeGreaterThan(1);
+        List<String[]> rows = chunks.stream().flatMap(List::stream).toList();
+
+        List<String[]> expected = new ArrayList<>();
+        try (CSVReader reader = new CSVReaderBuilder(new StringReader(csv.toString()))
+                .withCSVParser(new CSVParserBuilder().withEscapeChar('\0').build()).withSkipLines(1).build()) {
+            reader.forEach(expected::add);
+        }
+        assertThat(rows).hasSize(5000);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(rows.get(i)).as("row %d", i).containsExactly(expected.get(i));
+        }
+
+        List<List<String[]>> unordered = MappedCsvReader.read(file, 4, true, false, ArrayList::new,
+                (List<String[]> chunk, MappedCsvReader.Record row) -> chunk.add(new String[] {row.string(0)}));
+        assertThat(unordered.stream().flatMap(List::stream).map(r -> r[0]))
+                .containsExactlyInAnyOrderElementsOf(rows.stream().map(r -> r[0]).toList());
+    }
+
+    @Test
+    void rangesFromSplitCoverEveryRecordOnce() throws Exception {
+        StringBuilder csv = new StringBuilder("\"id\",\"note\"\n");
+        for (int i = 0; i < 3000; i++) {
+            csv.append('"').append(i).append("\",\"").append(i % 4 == 0 ? "a\nb" : "c").append("\"\n");
+        }
+        Path file = dir.resolve("ranges.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        long[] bounds = MappedCsvReader.split(file, 3);
+        assertThat(bounds).hasSize(4).startsWith(0L).endsWith(Files.size(file));
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < bounds.length - 1; i++) {
+            MappedCsvReader.readRange(file, bounds[i], bounds[i + 1], i == 0, ids,
+                    (List<String> list, MappedCsvReader.Record row) -> list.add(row.string(0)));
+        }
+        assertThat(ids).hasSize(3000).doesNotHaveDuplicates().startsWith("0").endsWith("2999");
+    }
+
+    @Test
+    void invalidNumbersAndDatesFallBackToMissing() throws Exception {
+        Path file = dir.resolve("bad.csv");
+        Files.writeString(file, "12x,2023-02-29,-7,1999-12-31\n,2023-13-01,99999999999,x");
+
+        List<List<List<String>>> chunks = MappedCsvReader.read(file, 1, false, true, ArrayList::new,
+                (List<List<String>> chunk, MappedCsvReader.Record row) -> chunk.add(Arrays.asList(
+                        String.valueOf(row.integer(0, -1)), String.valueOf(row.epochDay(1, -1)),
+                        String.valueOf(row.integer(2, -1)), String.valueOf(row.epochDay(3, -1)))));
+
+        assertThat(chunks.get(0)).containsExactly(
+                List.of("-1", "-1", "-7", String.valueOf(LocalDate.of(1999, 12, 31).toEpochDay())),
+                List.of("-1", "-1", "-1", "-1"));
+    }
+
+    @Test
+    void integersParseLikeIntegerParseInt() throws Exception {
+        String[] values = {"+5", "-0", "0000000000042", "2147483647", "-2147483648", "2147483648", "+", "1_0", "+-1"};
+        Path file = dir.resolve("ints.csv");
+        Files.writeString(file, String.join(",", values));
+
+        List<List<Integer>> chunks = MappedCsvReader.read(file, 1, false, true, ArrayList::new,
+                (List<Integer> chunk, MappedCsvReader.Record row) -> {
+                    for (int i = 0; i < row.size(); i++) {
+                        chunk.add(row.integer(i, -1));
+                    }
+                });
+
+        List<Integer> expected = new ArrayList<>();
+        for (String value : values) {
+            try {
+                expected.add(Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                expected.add(-1);
+            }
+        }
+        assertThat(chunks.get(0)).containsExactlyElementsOf(expected);
+    }
+}
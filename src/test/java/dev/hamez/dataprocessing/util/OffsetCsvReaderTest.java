@@ -0,0 +1,39 @@
+package dev.hamez.dataprocessing.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OffsetCsvReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumesAtTheRecordAfterTheReportedOffset() throws Exception {
+        Path file = dir.resolve("students.csv");
+        Files.writeString(file, "\"id\",\"name\"\r\n\"1\",\"Zoë\"\r\n\"2\",\"two\nlines\"\n\"3\",\"Ann \"\"A\"\"\"\n",
+                StandardCharsets.UTF_8);
+
+        long afterSecond;
+        try (OffsetCsvReader csv = new OffsetCsvReader(file, 0)) {
+            assertThat(csv.readNext()).containsExactly("id", "name");
+            assertThat(csv.readNext()).containsExactly("1", "Zoë");
+            assertThat(csv.readNext()).containsExactly("2", "two\nlines");
+            afterSecond = csv.offset();
+            assertThat(csv.readNext()).containsExactly("3", "Ann \"A\"");
+            assertThat(csv.readNext()).isNull();
+            assertThat(csv.offset()).isEqualTo(Files.size(file));
+        }
+
+        try (OffsetCsvReader csv = new OffsetCsvReader(file, afterSecond)) {
+            assertThat(csv.readNext()).containsExactly("3", "Ann \"A\"");
+            assertThat(csv.readNext()).isNull();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.hamez.dataprocessing.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelCompressingOutputStreamTest {
+
+    @TempDir
+    Path dir;
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void blocksCompressedInParallelReadBackAsOneStream() throws Exception {
+        StringBuilder csv = new StringBuilder("\"studentId\",\"score\"\n");
+        for (int i = 0; i < 200_000; i++) {
+            csv.append('"').append(i).append("\",\"").append(i % 101).append("\"\n");
+        }
+        byte[] data = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (Compression compression : new Compression[] {Compression.GZIP, Compression.ZSTD}) {
+            Path file = dir.resolve("students.csv" + compression.suffix);
+            // Small blocks and odd write sizes, so writes straddle many block boundaries
+            try (OutputStream out = new ParallelCompressingOutputStream(Files.newOutputStream(file), compression, 3, 64 * 1024, pool, 8)) {
+                for (int off = 0; off < data.length; off += 7_777) {
+                    out.write(data, off, Math.min(7_777, data.length - off));
+                }
+            }
+            assertThat(Files.size(file)).isLessThan(data.length / 3);
+            assertThat(Compression.detect(file)).isEqualTo(compression);
+            try (InputStream in = Compression.open(file)) {
+                assertThat(in.readAllBytes()).as("%s round trip", compression).isEqualTo(data);
+            }
+        }
+
+        Path empty = dir.resolve("empty.csv.gz");
+        new ParallelCompressingOutputStream(Files.newOutputStream(empty), Compression.GZIP, 6, 1024, null, 1).close();
+        try (InputStream in = Compression.open(empty)) {
+            assertThat(in.readAllBytes()).isEmpty();
+        }
+        Path plain = dir.resolve("plain.csv");
+        Files.write(plain, data);
+        assertThat(Compression.detect(plain)).isEqualTo(Compression.NONE);
+    }
+}
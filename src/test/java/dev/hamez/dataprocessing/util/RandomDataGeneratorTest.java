@@ -0,0 +1,25 @@
+package dev.hamez.dataprocessing.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RandomDataGeneratorTest {
+
+    @Test
+    void onlySplittableOrJumpableAlgorithmsAreAccepted() {
+        assertThat(RandomDataGenerator.factory("SplittableRandom").isSplittable()).isTrue();
+        // Jumpable only: split() falls back to copyAndJump
+        RandomDataGenerator jumpable = RandomDataGenerator.of("Xoshiro256PlusPlus", 1L);
+        assertThat(jumpable.split().nextInt(1, 10)).isBetween(1, 10);
+
+        assertThatThrownBy(() -> RandomDataGenerator.factory("Random")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RandomDataGenerator.factory("SecureRandom")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RandomDataGenerator(new Random())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RandomDataGenerator(new SecureRandom())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
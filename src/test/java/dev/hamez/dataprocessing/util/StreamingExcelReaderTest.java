@@ -0,0 +1,64 @@
+package dev.hamez.dataprocessing.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class StreamingExcelReaderTest {
+
+    @Test
+    void readExcelRows_resolvesSharedStringsAndPadsSkippedCells() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet sheet = wb.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("name");
+            header.createCell(1).setCellValue("score");
+            Row data = sheet.createRow(1);
+            data.createCell(0).setCellValue("Alice");
+            data.createCell(27).setCellValue(65); // column AB
+            wb.write(bytes);
+        }
+
+        List<List<String>> rows = new ArrayList<>();
+        List<CharSequence> firstCells = new ArrayList<>();
+        StreamingExcelReader.readExcelRows(new ByteArrayInputStream(bytes.toByteArray()), (rowNum, row) -> {
+            rows.add(row.copy());
+            firstCells.add(row.get(0));
+        });
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0)).containsExactly("name", "score");
+        assertThat(rows.get(1)).hasSize(28);
+        assertThat(rows.get(1).get(0)).isEqualTo("Alice");
+        assertThat(rows.get(1).subList(1, 27)).allMatch(String::isEmpty);
+        assertThat(Double.parseDouble(rows.get(1).get(27))).isEqualTo(65);
+        // Views are reused across rows, so only copies may be kept
+        assertThat(firstCells.get(0)).isSameAs(firstCells.get(1));
+    }
+
+    @Test
+    void readExcelStreaming_readsInlineStrings() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (XlsxPackageWriter writer = new XlsxPackageWriter(bytes)) {
+            writer.startSheet("Students");
+            writer.startRow();
+            writer.stringCell("Tom & \"Jerry\"");
+            writer.numberCell(7);
+            writer.endRow();
+            writer.endSheet();
+        }
+
+        List<List<String>> rows = new ArrayList<>();
+        StreamingExcelReader.readExcelStreaming(new ByteArrayInputStream(bytes.toByteArray()), (rowNum, cells) -> rows.add(cells));
+
+        assertThat(rows).containsExactly(List.of("Tom & \"Jerry\"", "7"));
+    }
+}